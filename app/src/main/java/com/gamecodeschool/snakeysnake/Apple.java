@@ -1,150 +1,64 @@
 package com.gamecodeschool.snakeysnake;
 
-import com.gamecodeschool.snakeysnake.SnakeGame;
-import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Point;
-import android.util.Log;
+import android.graphics.Rect;
 
-import java.util.Random;
+import com.gamecodeschool.snakeysnake.engine.Pickup;
+import com.gamecodeschool.snakeysnake.engine.PowerUpType;
 
+// Draws one of the engine's apples
 class Apple extends MainObject {
-    private SnakeGame mSnakeGame;
+    private final Pickup mPickup;
     private Point location = new Point();
-    private final Point mSpawnRange;
     private final int mSize;
 
-    // Apple representations
-    private Bitmap mBitmap;
-    private Bitmap mBitmapApple;
-    private Bitmap mGoldenApple;
-    private Bitmap mPoisonApple;
-
-    private long spawnTime;
-    private static final long MAX_TIME = 8000;
+    // Shared sprites, all three apple types are in here
+    private final SpriteAtlas mAtlas;
 
     // Set up the apple in the constructor
-    Apple(Context context, Point sr, int s) {
-        // Make a note of the passed in spawn range
-        this.mSpawnRange = sr;
+    Apple(SpriteAtlas atlas, Pickup pickup) {
+        // Make a note of the apple to draw
+        this.mPickup = pickup;
         // Make a note of the size of an apple
-        this.mSize = s;
-        // Hide the apple off-screen until the game starts
-        location.x = -10;
-        intializeBitmap(context, s);
-    }
-
-    //initialize mSnakeGame
-    public void setmSnakeGame(SnakeGame mSnakeGame) {
-        this.mSnakeGame = mSnakeGame;
-    }
-
-    private void intializeBitmap(Context context, int s) {
-        // Create the default bitmap object
-        mBitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.apple);
-        mBitmap = Bitmap.createScaledBitmap(mBitmap, s, s, false);
-
-        // Create bitmaps for Apples
-        mBitmapApple = BitmapFactory.decodeResource(context.getResources(), R.drawable.apple);
-        mBitmapApple = Bitmap.createScaledBitmap(mBitmapApple, s, s, false);
-        mGoldenApple = BitmapFactory.decodeResource(context.getResources(),R.drawable.golden_apple);
-        mGoldenApple = Bitmap.createScaledBitmap(mGoldenApple, s, s, false);
-        mPoisonApple = BitmapFactory.decodeResource(context.getResources(),R.drawable.poison_apple);
-        mPoisonApple = Bitmap.createScaledBitmap(mPoisonApple, s, s, false);
-    }
-
-    public int getScoreMultiplier() {
-        if(isGoldenApple()) {
-            return 2; // Receive 2 points if Golden Apple
-        }
-        else if(isPoisonApple()) {
-            return 0; // Receive no points if Poison Apple
-        }
-        else {
-            return 1; // Default gives 1
-        }
-    }
-
-    // This is called every time a normal apple is eaten
-    public void spawn(){
-        // Choose two random values and place the apple
-        Random random = new Random();
-        location.x = random.nextInt(mSpawnRange.x) + 1;
-        location.y = random.nextInt(mSpawnRange.y - 1) + 1;
-        spawnTime = System.currentTimeMillis();
-
-        if(isGoldenApple()) {
-            mBitmap = mGoldenApple;
-        }
-        else if(isPoisonApple()) {
-            mBitmap = mPoisonApple;
-        }
-        else {
-            mBitmap = mBitmapApple;
-        }
-    }
-
-    // This is called when a power-up apple is spawned
-    public void spawn(int minX, int maxX, int minY, int maxY) {
-        Random random = new Random();
-        location.x = random.nextInt(maxX - minX + 1) + minX;
-        location.y = random.nextInt(maxY - minY + 1) + minY;
-        spawnTime = System.currentTimeMillis();
-
-        if(isGoldenApple()) {
-            mBitmap = mGoldenApple;
-        }
-        else if(isPoisonApple()) {
-            mBitmap = mPoisonApple;
-        }
-        else {
-            mBitmap = mBitmapApple;
-        }
-    }
-
-    public boolean needsRespawn() {
-        long currentTime = System.currentTimeMillis();
-        return (currentTime - spawnTime > MAX_TIME);
+        this.mSize = atlas.getSize();
+        this.mAtlas = atlas;
     }
 
     // Draw the apple
     @Override
     public void draw(Canvas canvas, Paint paint) {
-        canvas.drawBitmap(mBitmap, location.x * mSize, location.y * mSize, paint);
+        draw(canvas, paint, null);
     }
 
-    // Check if the apple that spawned is golden
-    private boolean isGoldenApple() {
-        if(mSnakeGame != null) {
-            return SpawnUtil.shouldSpawnPowerUp();
+    // Skips apples outside cells, the ones on screen when the board scrolls
+    void draw(Canvas canvas, Paint paint, Rect cells) {
+        // Nothing to draw until the apple has spawned
+        if (!mPickup.isActive()) {
+            return;
         }
-        else {
-            return false;
+        if (cells != null && !cells.contains(mPickup.getX(), mPickup.getY())) {
+            return;
         }
-    }
-
-    // Check if the apple that spawned is poison
-    private boolean isPoisonApple() {
-        if(mSnakeGame != null) {
-            return SpawnUtil.shouldSpawnPowerDown();
-        }
-        else {
-            return false;
+        // Types without a sprite of their own look like a plain apple
+        PowerUpType type = mPickup.getType();
+        int sprite = SpriteAtlas.APPLE;
+        if (type == PowerUpType.GOLDEN_APPLE) {
+            sprite = SpriteAtlas.GOLDEN_APPLE;
+        } else if (type == PowerUpType.POISON_APPLE) {
+            sprite = SpriteAtlas.POISON_APPLE;
         }
+        mAtlas.draw(canvas, sprite, mPickup.getX() * mSize, mPickup.getY() * mSize, paint);
     }
 
     // Let SnakeGame know where the apple is
     @Override
     public Point getLocation() {
+        location.set(mPickup.getX(), mPickup.getY());
         return location;
     }
 
-    public void setLocation(Point location){
-        this.location = location;
-    }
     @Override
     public int getWidth() {
         return 0;
@@ -165,4 +79,4 @@ class Apple extends MainObject {
     public void move() {
         // No movement for Apple
     }
-}
\ No newline at end of file
+}
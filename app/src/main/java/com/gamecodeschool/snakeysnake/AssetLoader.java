@@ -0,0 +1,118 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+// Loads assets in parallel on background threads so the UI thread never
+// waits on a decode, and keeps how long each one took
+class AssetLoader {
+    private static final String TAG = "AssetLoader";
+    // The home screen should be up within this long of starting to load
+    static final long HOME_BUDGET_MILLIS = 300;
+    private static final int MAX_THREADS = 4;
+
+    private final ExecutorService mExecutor;
+    private final long mStartNanos = System.nanoTime();
+    // How many milliseconds each asset took, in the order they finished
+    private final Map<String, Long> mTimings = new LinkedHashMap<>();
+
+    AssetLoader() {
+        int threads = Math.max(2, Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors()));
+        mExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int mCount;
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "AssetLoader-" + mCount++);
+                // Loading shouldn't keep the app alive or compete with the game thread
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        });
+    }
+
+    // Starts loading an asset, the name is only used for the timings
+    <T> Future<T> load(final String name, final Callable<T> task) {
+        return mExecutor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                long start = System.nanoTime();
+                T result = task.call();
+                record(name, start);
+                return result;
+            }
+        });
+    }
+
+    // Notes an asset that finished loading somewhere else, like a MediaPlayer
+    void record(String name, long startNanos) {
+        long millis = (System.nanoTime() - startNanos) / 1000000L;
+        synchronized (mTimings) {
+            mTimings.put(name, millis);
+        }
+        Log.d(TAG, name + " loaded in " + millis + " ms");
+    }
+
+    // The result of a finished load, or null if it failed
+    <T> T get(Future<T> future, String name) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error loading " + name, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    static boolean isDone(Future<?>... futures) {
+        for (Future<?> future : futures) {
+            if (!future.isDone()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Milliseconds since loading started
+    long getElapsedMillis() {
+        return (System.nanoTime() - mStartNanos) / 1000000L;
+    }
+
+    // Call when the home screen's assets are in, warns if that took too long
+    void homeReady() {
+        long millis = getElapsedMillis();
+        if (millis > HOME_BUDGET_MILLIS) {
+            Log.w(TAG, "Home screen took " + millis + " ms to load, budget is " + HOME_BUDGET_MILLIS + " ms");
+        } else {
+            Log.d(TAG, "Home screen ready in " + millis + " ms");
+        }
+    }
+
+    Map<String, Long> getTimings() {
+        synchronized (mTimings) {
+            return new LinkedHashMap<>(mTimings);
+        }
+    }
+
+    // Logs the total next to the sum of the parts, then lets the threads go
+    void finish() {
+        long sum = 0;
+        synchronized (mTimings) {
+            for (long millis : mTimings.values()) {
+                sum += millis;
+            }
+        }
+        Log.d(TAG, "Loaded everything in " + getElapsedMillis() + " ms, " + sum + " ms of work");
+        mExecutor.shutdown();
+    }
+}
@@ -0,0 +1,59 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Point;
+
+import com.gamecodeschool.snakeysnake.engine.Autopilot;
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+import com.gamecodeschool.snakeysnake.engine.GameState;
+import com.gamecodeschool.snakeysnake.engine.PickupPool;
+
+// A game the Autopilot plays behind the home screen text. It has an engine of
+// its own, so the player's game, high scores and replay are left alone.
+class AttractMode {
+    private final GameEngine mEngine;
+    private final Autopilot mAutopilot;
+    private final Snake mSnake;
+    private final Apple[] mApples;
+    // Only used for its sprite, the demo's walls come from its own engine
+    private final Wall mWall;
+    // Moves the last frame showed, so the home screen is only redrawn when the demo moved
+    private long mDrawnMoveCount = -1;
+
+    AttractMode(int width, int height, long seed, long tickMillis, SpriteAtlas atlas, Wall wall) {
+        mEngine = new GameEngine(width, height, seed);
+        mEngine.setTickMillis(tickMillis);
+        mEngine.newGame();
+        mAutopilot = new Autopilot(mEngine);
+        GameState state = mEngine.getState();
+        mSnake = new Snake(atlas, new Point(width, height), state.getSnake());
+        PickupPool pickups = state.getPickups();
+        mApples = new Apple[pickups.getCapacity()];
+        for (int i = 0; i < mApples.length; i++) {
+            mApples[i] = new Apple(atlas, pickups.getSlot(i));
+        }
+        mWall = wall;
+    }
+
+    // One fixed step of the demo, it starts over by itself when it dies
+    void tick() {
+        mAutopilot.steer();
+        mEngine.tick();
+    }
+
+    boolean needsDraw() {
+        return mEngine.getState().getSnake().getMoveCount() != mDrawnMoveCount;
+    }
+
+    // Draws on top of the home background, a whole cell at a time
+    void draw(Canvas canvas, Paint paint) {
+        GameState state = mEngine.getState();
+        mWall.draw(canvas, paint, state.getWall());
+        for (Apple apple : mApples) {
+            apple.draw(canvas, paint);
+        }
+        mSnake.draw(canvas, paint, 1f, null);
+        mDrawnMoveCount = state.getSnake().getMoveCount();
+    }
+}
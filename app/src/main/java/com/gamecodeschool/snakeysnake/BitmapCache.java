@@ -0,0 +1,85 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Decodes each drawable once per size and hands out the same scaled
+// bitmap to everyone who asks for it again. Safe to use from the loader
+// threads, and different bitmaps decode in parallel.
+class BitmapCache {
+    private final Resources mResources;
+    // Keyed by resource id and target size, see keyOf()
+    private final ConcurrentHashMap<Long, Bitmap> mBitmaps = new ConcurrentHashMap<>();
+
+    BitmapCache(Resources resources) {
+        this.mResources = resources;
+    }
+
+    // The drawable scaled to width x height, decoded the first time it is asked for
+    Bitmap get(int resId, int width, int height) {
+        Long key = keyOf(resId, width, height);
+        Bitmap bitmap = mBitmaps.get(key);
+        if (bitmap == null) {
+            // Decode without holding a lock, if two threads race the first one wins
+            Bitmap decoded = decode(resId, width, height);
+            bitmap = mBitmaps.putIfAbsent(key, decoded);
+            if (bitmap == null) {
+                bitmap = decoded;
+            } else {
+                decoded.recycle();
+            }
+        }
+        return bitmap;
+    }
+
+    // Bytes held by every bitmap in the cache
+    long getByteCount() {
+        long bytes = 0;
+        for (Bitmap bitmap : mBitmaps.values()) {
+            bytes += bitmap.getAllocationByteCount();
+        }
+        return bytes;
+    }
+
+    // Frees every bitmap, anything handed out before this can't be drawn any more
+    void clear() {
+        for (Bitmap bitmap : mBitmaps.values()) {
+            bitmap.recycle();
+        }
+        mBitmaps.clear();
+    }
+
+    private Bitmap decode(int resId, int width, int height) {
+        // Read just the size first so big images can be subsampled while decoding
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(mResources, resId, options);
+        options.inSampleSize = sampleSizeFor(options.outWidth, options.outHeight, width, height);
+        options.inJustDecodeBounds = false;
+
+        Bitmap decoded = BitmapFactory.decodeResource(mResources, resId, options);
+        Bitmap scaled = Bitmap.createScaledBitmap(decoded, width, height, false);
+        if (scaled != decoded) {
+            // Only the scaled copy is kept
+            decoded.recycle();
+        }
+        return scaled;
+    }
+
+    // Largest power of two that still decodes at least as big as the target
+    private static int sampleSizeFor(int outWidth, int outHeight, int width, int height) {
+        int sampleSize = 1;
+        while (outWidth / (sampleSize * 2) >= width && outHeight / (sampleSize * 2) >= height) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    // Resource ids fill 32 bits, so the size goes in the top half of the long
+    private static long keyOf(int resId, int width, int height) {
+        return ((long) (width & 0xFFFF) << 48) | ((long) (height & 0xFFFF) << 32) | (resId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,53 @@
+package com.gamecodeschool.snakeysnake;
+
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+
+// How big the board is and how much of it fits on the screen at once
+class BoardConfig {
+    // How many cells fit across the screen, which decides how many pixels a cell is
+    private final int blocksAcross;
+    // The board in cells, or 0 to make it exactly fill the screen
+    private final int arenaWidth;
+    private final int arenaHeight;
+
+    BoardConfig(int blocksAcross, int arenaWidth, int arenaHeight) {
+        if (blocksAcross <= 0) {
+            throw new IllegalArgumentException("Need at least one cell across the screen");
+        }
+        if (arenaWidth < 0 || arenaHeight < 0
+                || arenaWidth > OccupancyGrid.MAX_SIZE || arenaHeight > OccupancyGrid.MAX_SIZE) {
+            throw new IllegalArgumentException("Bad arena size " + arenaWidth + "x" + arenaHeight);
+        }
+        this.blocksAcross = blocksAcross;
+        this.arenaWidth = arenaWidth;
+        this.arenaHeight = arenaHeight;
+    }
+
+    // 40 cells across and the board is the screen, like the original game
+    static BoardConfig defaults() {
+        return new BoardConfig(40, 0, 0);
+    }
+
+    // A board much bigger than the screen, the view follows the snake around it
+    static BoardConfig largeArena(int width, int height) {
+        return new BoardConfig(40, width, height);
+    }
+
+    //Getters
+    public int getBlocksAcross() {
+        return blocksAcross;
+    }
+
+    // The board width in cells, given how many fit across the screen
+    public int getBoardWidth(int screenBlocksWide) {
+        return arenaWidth == 0 ? screenBlocksWide : arenaWidth;
+    }
+
+    public int getBoardHeight(int screenBlocksHigh) {
+        return arenaHeight == 0 ? screenBlocksHigh : arenaHeight;
+    }
+
+    public boolean isLargeArena() {
+        return arenaWidth != 0 || arenaHeight != 0;
+    }
+}
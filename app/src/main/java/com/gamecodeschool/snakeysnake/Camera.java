@@ -0,0 +1,71 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.graphics.Rect;
+
+// Which part of the board is on the screen. When the board is bigger than
+// the screen it follows the snake's head and stops at the edges, otherwise
+// it stays at the top left and the whole board is in view.
+class Camera {
+    private final int mBlockSize;
+    // The board and the screen in pixels
+    private final int mBoardWidth;
+    private final int mBoardHeight;
+    private final int mViewWidth;
+    private final int mViewHeight;
+
+    // Board pixels at the top left of the screen
+    private int mLeft;
+    private int mTop;
+    // The board pixels on screen and the cells they touch, reused every frame
+    private final Rect mView = new Rect();
+    private final Rect mCells = new Rect();
+
+    Camera(int blockSize, int boardCellsWide, int boardCellsHigh, int viewWidth, int viewHeight) {
+        this.mBlockSize = blockSize;
+        this.mBoardWidth = boardCellsWide * blockSize;
+        this.mBoardHeight = boardCellsHigh * blockSize;
+        this.mViewWidth = viewWidth;
+        this.mViewHeight = viewHeight;
+        moveTo(0, 0);
+    }
+
+    // Does the board need scrolling to see all of it?
+    boolean isScrolling() {
+        return mBoardWidth > mViewWidth || mBoardHeight > mViewHeight;
+    }
+
+    // Centres the view on target, in board pixels, without showing past the edges
+    void follow(Rect target) {
+        moveTo((target.left + target.right) / 2 - mViewWidth / 2,
+                (target.top + target.bottom) / 2 - mViewHeight / 2);
+    }
+
+    private void moveTo(int left, int top) {
+        mLeft = Math.max(0, Math.min(mBoardWidth - mViewWidth, left));
+        mTop = Math.max(0, Math.min(mBoardHeight - mViewHeight, top));
+        mView.set(mLeft, mTop, mLeft + mViewWidth, mTop + mViewHeight);
+        // Every cell with at least one pixel showing
+        mCells.set(mLeft / mBlockSize, mTop / mBlockSize,
+                Math.min(mBoardWidth, mLeft + mViewWidth + mBlockSize - 1) / mBlockSize,
+                Math.min(mBoardHeight, mTop + mViewHeight + mBlockSize - 1) / mBlockSize);
+    }
+
+    //Getters
+    public int getLeft() {
+        return mLeft;
+    }
+
+    public int getTop() {
+        return mTop;
+    }
+
+    // What's on screen in board pixels
+    public Rect getView() {
+        return mView;
+    }
+
+    // The cells on screen, right and bottom are one past the last
+    public Rect getVisibleCells() {
+        return mCells;
+    }
+}
@@ -0,0 +1,196 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.os.Debug;
+
+import com.gamecodeschool.snakeysnake.engine.LatencyHistogram;
+
+// Times each tick and each part of drawing a frame into histograms, and counts
+// what the game thread allocates per frame, so jank can be tracked down on a
+// device. Off by default. When it's off every call is a single branch.
+class FrameStats {
+    // What gets timed
+    static final int TICK = 0;
+    // The static layer, which is the background, walls, pause button and names in one
+    static final int STATIC_LAYER = 1;
+    // Apple and snake
+    static final int SPRITES = 2;
+    static final int HUD = 3;
+    // unlockCanvasAndPost
+    static final int POST = 4;
+    // All of draw()
+    static final int FRAME = 5;
+    private static final String[] PHASE_NAMES = {"tick", "static", "sprites", "hud", "post", "frame"};
+    private static final String ALLOCATIONS_NAME = "allocs";
+
+    private final LatencyHistogram[] mPhases = new LatencyHistogram[PHASE_NAMES.length];
+    // Objects allocated on the game thread per frame, a count rather than nanoseconds
+    private final LatencyHistogram mAllocations = new LatencyHistogram();
+
+    private volatile boolean mEnabled;
+    private volatile boolean mOverlayShown;
+    private int mFrameStartAllocations;
+
+    // The overlay only changes this often, so it's readable and mostly not redrawn
+    private static final long OVERLAY_REFRESH_NANOS = 500000000L;
+    private static final int OVERLAY_LEFT = 20;
+    private static final int OVERLAY_TOP = 300;
+    private static final int OVERLAY_LINE_HEIGHT = 44;
+    private static final int OVERLAY_WIDTH = 1000;
+    private static final double[] OVERLAY_PERCENTILES = {50, 95, 99};
+    private static final String[] OVERLAY_LABELS = {" p50 ", " p95 ", " p99 "};
+    private static final String OVERLAY_MAX_LABEL = " max ";
+    private final Rect mOverlayRect = new Rect(OVERLAY_LEFT, OVERLAY_TOP, OVERLAY_LEFT + OVERLAY_WIDTH,
+            OVERLAY_TOP + (PHASE_NAMES.length + 2) * OVERLAY_LINE_HEIGHT);
+    private final Paint mOverlayPaint = new Paint();
+    private final Paint mOverlayBackPaint = new Paint();
+    // One line per phase, then the allocations, written into reused buffers
+    private final char[][] mOverlayLines = new char[PHASE_NAMES.length + 1][64];
+    private final int[] mOverlayLengths = new int[PHASE_NAMES.length + 1];
+    private long mLastOverlayRefresh;
+
+    FrameStats() {
+        for (int i = 0; i < mPhases.length; i++) {
+            mPhases[i] = new LatencyHistogram();
+        }
+        mOverlayPaint.setColor(Color.YELLOW);
+        mOverlayPaint.setTextSize(36);
+        mOverlayPaint.setTypeface(Typeface.MONOSPACE);
+        mOverlayBackPaint.setColor(Color.argb(160, 0, 0, 0));
+    }
+
+    boolean isEnabled() {
+        return mEnabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        if (enabled == mEnabled) {
+            return;
+        }
+        if (enabled) {
+            // The only per-thread allocation counter Android has
+            Debug.startAllocCounting();
+        } else {
+            Debug.stopAllocCounting();
+            mOverlayShown = false;
+        }
+        mEnabled = enabled;
+    }
+
+    boolean isOverlayShown() {
+        return mOverlayShown;
+    }
+
+    // Showing the overlay turns the timing on too
+    void setOverlayShown(boolean shown) {
+        if (shown) {
+            setEnabled(true);
+        }
+        mOverlayShown = shown;
+        // Draw it on the next frame
+        mLastOverlayRefresh = 0;
+    }
+
+    // Call at the start of something to time, then end() with what it returns
+    long start() {
+        return mEnabled ? System.nanoTime() : 0;
+    }
+
+    void end(int phase, long start) {
+        // start is 0 if timing was off when it began
+        if (start != 0) {
+            mPhases[phase].record(System.nanoTime() - start);
+        }
+    }
+
+    // Brackets everything the game thread does in one frame, for the allocation count
+    void beginFrame() {
+        if (mEnabled) {
+            mFrameStartAllocations = Debug.getThreadAllocCount();
+        }
+    }
+
+    void endFrame() {
+        if (mEnabled) {
+            mAllocations.record(Debug.getThreadAllocCount() - mFrameStartAllocations);
+        }
+    }
+
+    void reset() {
+        for (LatencyHistogram phase : mPhases) {
+            phase.reset();
+        }
+        mAllocations.reset();
+    }
+
+    // Where the overlay goes, fixed so dirty frames know what to redraw
+    Rect getOverlayRect() {
+        return mOverlayRect;
+    }
+
+    // Rewrites the overlay text if it's time, returns true if it changed
+    boolean refreshOverlay(long nowNanos) {
+        if (!mOverlayShown || nowNanos - mLastOverlayRefresh < OVERLAY_REFRESH_NANOS) {
+            return false;
+        }
+        mLastOverlayRefresh = nowNanos;
+        for (int i = 0; i < mPhases.length; i++) {
+            // Microseconds is plenty of precision for a frame
+            mOverlayLengths[i] = writeLine(mOverlayLines[i], PHASE_NAMES[i], mPhases[i], 1000);
+        }
+        mOverlayLengths[mPhases.length] = writeLine(mOverlayLines[mPhases.length], ALLOCATIONS_NAME, mAllocations, 1);
+        return true;
+    }
+
+    void drawOverlay(Canvas canvas) {
+        if (!mOverlayShown) {
+            return;
+        }
+        canvas.drawRect(mOverlayRect, mOverlayBackPaint);
+        int y = OVERLAY_TOP + OVERLAY_LINE_HEIGHT;
+        for (int i = 0; i < mOverlayLines.length; i++) {
+            canvas.drawText(mOverlayLines[i], 0, mOverlayLengths[i], OVERLAY_LEFT + 10, y, mOverlayPaint);
+            y += OVERLAY_LINE_HEIGHT;
+        }
+    }
+
+    // A report of every histogram, for the log or a bug report. Times are in microseconds.
+    String dump() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < mPhases.length; i++) {
+            appendReport(out, PHASE_NAMES[i] + " us", mPhases[i], 1000);
+        }
+        appendReport(out, ALLOCATIONS_NAME + " per frame", mAllocations, 1);
+        return out.toString();
+    }
+
+    private static void appendReport(StringBuilder out, String name, LatencyHistogram histogram, long divisor) {
+        out.append(name)
+                .append(": count ").append(histogram.getCount())
+                .append(" mean ").append(histogram.getMean() / divisor)
+                .append(" p50 ").append(histogram.getPercentile(50) / divisor)
+                .append(" p95 ").append(histogram.getPercentile(95) / divisor)
+                .append(" p99 ").append(histogram.getPercentile(99) / divisor)
+                .append(" max ").append(histogram.getMax() / divisor)
+                .append('\n');
+    }
+
+    // "name p50 n p95 n p99 n max n" into out, returns the length
+    private static int writeLine(char[] out, String name, LatencyHistogram histogram, long divisor) {
+        name.getChars(0, name.length(), out, 0);
+        int end = name.length();
+        for (int i = 0; i < OVERLAY_PERCENTILES.length; i++) {
+            end = writeValue(out, end, OVERLAY_LABELS[i], histogram.getPercentile(OVERLAY_PERCENTILES[i]) / divisor);
+        }
+        return writeValue(out, end, OVERLAY_MAX_LABEL, histogram.getMax() / divisor);
+    }
+
+    private static int writeValue(char[] out, int start, String label, long value) {
+        label.getChars(0, label.length(), out, start);
+        return Hud.writeInt(out, start + label.length(), (int) Math.min(Integer.MAX_VALUE, value));
+    }
+}
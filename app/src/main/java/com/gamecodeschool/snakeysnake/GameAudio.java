@@ -0,0 +1,238 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.content.res.AssetManager;
+import android.media.AudioAttributes;
+import android.media.MediaPlayer;
+import android.media.SoundPool;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+import com.gamecodeschool.snakeysnake.engine.GameEvents;
+import com.gamecodeschool.snakeysnake.engine.InputQueue;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+// Owns every sound the game makes and plays them on a thread of its own.
+// The game thread and the UI thread each drop commands into their own
+// lock-free queue and nudge the audio thread awake, so neither one ever
+// waits on SoundPool or MediaPlayer. If a queue is full the sound is dropped.
+// The game's sounds come from the engine's events, see onGameEvent().
+class GameAudio implements Runnable, GameEvents.Listener {
+    private static final String TAG = "GameAudio";
+
+    // Sound effects the game thread can play
+    static final int SOUND_EAT = 0;
+    static final int SOUND_DEATH = 1;
+    static final int SOUND_EXPLOSION = 2;
+    // The asset for each sound, sounds that share a file share one loaded sample
+    private static final String[] SOUND_FILES = {
+            "eating_sound.ogg", "Minecraft_death.ogg", "creeper_explosion.ogg"};
+    private static final String MUSIC_FILE = "Minecraft_Music.ogg";
+
+    // Lifecycle commands from the UI thread
+    private static final int COMMAND_PAUSE = 0;
+    private static final int COMMAND_RESUME = 1;
+    private static final int COMMAND_RELEASE = 2;
+
+    // How many effects can play over each other
+    private static final int MAX_VOICES = 5;
+    private static final int QUEUE_CAPACITY = 32;
+    // A sound that waited longer than this would be out of step with the game
+    private static final long STALE_MILLIS = 200;
+
+    private final Context mContext;
+    private final AssetLoader mAssets;
+    // Only the game thread offers to this one
+    private final InputQueue mSounds = new InputQueue(QUEUE_CAPACITY);
+    // Only the UI thread offers to this one
+    private final InputQueue mCommands = new InputQueue(QUEUE_CAPACITY);
+    private Thread mThread;
+
+    // Everything below belongs to the audio thread
+    private SoundPool mSoundPool;
+    // Loaded sample for each SOUND_, 0 if it didn't load
+    private final int[] mSampleIds = new int[SOUND_FILES.length];
+    private MediaPlayer mMediaPlayer;
+    // Set from the MediaPlayer's callback once the music can start
+    private volatile boolean mMusicPrepared = false;
+    private boolean mMusicPlaying = false;
+    private boolean mPaused = false;
+
+    GameAudio(Context context, AssetLoader assets) {
+        mContext = context;
+        mAssets = assets;
+    }
+
+    void start() {
+        mThread = new Thread(this, TAG);
+        mThread.setDaemon(true);
+        mThread.start();
+    }
+
+    // Game thread. Never blocks, drops the sound if the audio thread is far behind.
+    void play(int sound) {
+        if (mSounds.offer(sound, SystemClock.uptimeMillis())) {
+            LockSupport.unpark(mThread);
+        }
+    }
+
+    // Game thread, while the engine's events are dispatched
+    @Override
+    public void onGameEvent(int type, int a, int b, long timeMillis) {
+        if (type == GameEvents.APPLE_EATEN) {
+            play(SOUND_EAT);
+        } else if (type == GameEvents.DEATH) {
+            if ((a & GameEngine.EVENT_HIT_WALL) != 0) {
+                play(SOUND_EXPLOSION);
+            }
+            play(SOUND_DEATH);
+        }
+    }
+
+    // UI thread. Pauses the music and anything still playing.
+    void pause() {
+        command(COMMAND_PAUSE);
+    }
+
+    // UI thread
+    void resume() {
+        command(COMMAND_RESUME);
+    }
+
+    // UI thread. Lets go of the players and ends the audio thread.
+    void release() {
+        command(COMMAND_RELEASE);
+    }
+
+    private void command(int command) {
+        if (!mCommands.offer(command, SystemClock.uptimeMillis())) {
+            Log.w(TAG, "Audio commands backed up, dropped " + command);
+        }
+        LockSupport.unpark(mThread);
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+        load();
+        while (true) {
+            boolean idle = true;
+            int command;
+            while ((command = mCommands.peek()) != InputQueue.EMPTY) {
+                mCommands.remove();
+                idle = false;
+                if (command == COMMAND_RELEASE) {
+                    releasePlayers();
+                    return;
+                }
+                mPaused = command == COMMAND_PAUSE;
+                if (mPaused) {
+                    mSoundPool.autoPause();
+                } else {
+                    mSoundPool.autoResume();
+                }
+            }
+            int sound;
+            while ((sound = mSounds.peek()) != InputQueue.EMPTY) {
+                long age = SystemClock.uptimeMillis() - mSounds.peekTime();
+                mSounds.remove();
+                idle = false;
+                if (!mPaused && age <= STALE_MILLIS && mSampleIds[sound] != 0) {
+                    mSoundPool.play(mSampleIds[sound], 1, 1, 0, 0, 1);
+                }
+            }
+            syncMusic();
+            if (idle) {
+                // Woken by the next offer, or straight away if one came in since the checks
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private void load() {
+        long start = System.nanoTime();
+        AudioAttributes audioAttributes = new AudioAttributes.Builder()
+                .setUsage(AudioAttributes.USAGE_MEDIA)
+                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                .build();
+        mSoundPool = new SoundPool.Builder()
+                .setMaxStreams(MAX_VOICES)
+                .setAudioAttributes(audioAttributes)
+                .build();
+
+        // Each file is opened and decoded once however many sounds use it
+        AssetManager assetManager = mContext.getAssets();
+        Map<String, Integer> loaded = new HashMap<>();
+        for (int i = 0; i < SOUND_FILES.length; i++) {
+            Integer sampleId = loaded.get(SOUND_FILES[i]);
+            if (sampleId == null) {
+                try {
+                    sampleId = mSoundPool.load(assetManager.openFd(SOUND_FILES[i]), 0);
+                } catch (IOException e) {
+                    Log.e(TAG, "Error loading " + SOUND_FILES[i], e);
+                    sampleId = 0;
+                }
+                loaded.put(SOUND_FILES[i], sampleId);
+            }
+            mSampleIds[i] = sampleId;
+        }
+        mAssets.record("sounds", start);
+        loadMusic();
+    }
+
+    private void loadMusic() {
+        try {
+            AssetFileDescriptor descriptor = mContext.getAssets().openFd(MUSIC_FILE);
+            mMediaPlayer = new MediaPlayer();
+            mMediaPlayer.setDataSource(descriptor.getFileDescriptor(), descriptor.getStartOffset(), descriptor.getLength());
+            descriptor.close();
+
+            mMediaPlayer.setLooping(true);
+            mMediaPlayer.setVolume(1.0f, 1.0f);
+            final long start = System.nanoTime();
+            // Comes back on the main thread, the audio thread starts it from there
+            mMediaPlayer.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+                @Override
+                public void onPrepared(MediaPlayer mp) {
+                    mAssets.record("music", start);
+                    mMusicPrepared = true;
+                    LockSupport.unpark(mThread);
+                }
+            });
+            mMediaPlayer.prepareAsync();
+        } catch (IOException e) {
+            Log.e(TAG, "Error setting up background music", e);
+            mMediaPlayer = null;
+        }
+    }
+
+    // Music plays whenever it's ready and the game isn't paused
+    private void syncMusic() {
+        if (mMediaPlayer == null || !mMusicPrepared) {
+            return;
+        }
+        if (!mPaused && !mMusicPlaying) {
+            mMediaPlayer.start();
+            mMusicPlaying = true;
+        } else if (mPaused && mMusicPlaying) {
+            mMediaPlayer.pause();
+            mMusicPlaying = false;
+        }
+    }
+
+    private void releasePlayers() {
+        if (mMediaPlayer != null) {
+            mMediaPlayer.release();
+            mMediaPlayer = null;
+        }
+        mSoundPool.release();
+        mSoundPool = null;
+    }
+}
@@ -0,0 +1,55 @@
+package com.gamecodeschool.snakeysnake;
+
+// Timing settings for the game loop in SnakeGame
+class GameLoopConfig {
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    // How many simulation ticks run each second
+    private final int ticksPerSecond;
+    // Upper limit on how many frames get drawn each second
+    private final int maxFramesPerSecond;
+    // Pace drawing with the display's vsync through Choreographer
+    private final boolean vsyncEnabled;
+    // Most ticks we will run in one frame to catch up after a stall
+    private final int maxCatchUpTicks;
+
+    GameLoopConfig(int ticksPerSecond, int maxFramesPerSecond, boolean vsyncEnabled, int maxCatchUpTicks) {
+        if (ticksPerSecond <= 0 || maxFramesPerSecond <= 0 || maxCatchUpTicks <= 0) {
+            throw new IllegalArgumentException("Loop rates must be positive");
+        }
+        this.ticksPerSecond = ticksPerSecond;
+        this.maxFramesPerSecond = maxFramesPerSecond;
+        this.vsyncEnabled = vsyncEnabled;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    // 10 ticks a second like the original game, drawn at up to 60 frames a second
+    static GameLoopConfig defaults() {
+        return new GameLoopConfig(10, 60, true, 5);
+    }
+
+    //Getters
+    public int getTicksPerSecond() {
+        return ticksPerSecond;
+    }
+
+    public int getMaxFramesPerSecond() {
+        return maxFramesPerSecond;
+    }
+
+    public boolean isVsyncEnabled() {
+        return vsyncEnabled;
+    }
+
+    public int getMaxCatchUpTicks() {
+        return maxCatchUpTicks;
+    }
+
+    public long getTickNanos() {
+        return NANOS_PER_SECOND / ticksPerSecond;
+    }
+
+    public long getFrameNanos() {
+        return NANOS_PER_SECOND / maxFramesPerSecond;
+    }
+}
@@ -0,0 +1,218 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.util.Log;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// The best scores and when they were set, kept in memory and written out on
+// a background executor. However often the score goes up, there is at most
+// one write waiting, and it saves whatever the board looks like when it runs.
+class HighScores {
+    private static final String TAG = "HighScores";
+    static final int MAX_ENTRIES = 10;
+    private static final String FILE_NAME = "highscores.dat";
+    // Where a single highscore used to be kept, read once if the new file isn't there
+    private static final String OLD_FILE_NAME = "highscore.dat";
+
+    private final File mDir;
+    private final Executor mWriter;
+
+    // Best first. Guarded by this, the writer copies them out under the lock.
+    private final int[] mScores = new int[MAX_ENTRIES];
+    private final long[] mTimes = new long[MAX_ENTRIES];
+    private int mCount;
+    // The best score, readable from any thread without the lock
+    private volatile int mBest;
+
+    // The game being played, and its place on the board once it has made it on
+    private boolean mRunning;
+    private long mRunTime;
+    private int mRunScore;
+    private int mRunIndex = -1;
+
+    private final AtomicBoolean mWriteQueued = new AtomicBoolean();
+    private final Runnable mWrite = new Runnable() {
+        @Override
+        public void run() {
+            // Cleared first so an update during the write queues another
+            mWriteQueued.set(false);
+            write();
+        }
+    };
+
+    HighScores(File dir, Executor writer) {
+        mDir = dir;
+        mWriter = writer;
+        load();
+    }
+
+    int getBest() {
+        return mBest;
+    }
+
+    synchronized int getCount() {
+        return mCount;
+    }
+
+    synchronized int getScore(int index) {
+        return mScores[index];
+    }
+
+    // When the score at index was set, in System.currentTimeMillis() time
+    synchronized long getTime(int index) {
+        return mTimes[index];
+    }
+
+    // A new game has started, it goes on the board once it scores enough
+    synchronized void startRun(long timeMillis) {
+        mRunning = true;
+        mRunTime = timeMillis;
+        mRunScore = 0;
+        mRunIndex = -1;
+    }
+
+    // Called every tick, so it's cheap when the score hasn't gone up
+    void update(int score) {
+        if (!mRunning || score <= mRunScore) {
+            return;
+        }
+        synchronized (this) {
+            if (!mRunning || score <= mRunScore) {
+                return;
+            }
+            mRunScore = score;
+            if (mRunIndex < 0) {
+                mRunIndex = insert(score, mRunTime);
+                if (mRunIndex < 0) {
+                    // Not good enough for the board yet
+                    return;
+                }
+            } else {
+                mScores[mRunIndex] = score;
+                mRunIndex = moveUp(mRunIndex);
+            }
+            mBest = mScores[0];
+        }
+        queueWrite();
+    }
+
+    // The game is over, its entry stays where it got to
+    synchronized void endRun() {
+        mRunning = false;
+        mRunIndex = -1;
+    }
+
+    private void queueWrite() {
+        if (mWriteQueued.compareAndSet(false, true)) {
+            mWriter.execute(mWrite);
+        }
+    }
+
+    // Puts a score on the board in order, returns where or -1 if it didn't make it.
+    // Ties go below the older score.
+    private int insert(int score, long time) {
+        if (score <= 0 || (mCount == MAX_ENTRIES && score <= mScores[mCount - 1])) {
+            return -1;
+        }
+        if (mCount < MAX_ENTRIES) {
+            mCount++;
+        }
+        // Drops the last entry if the board was full
+        mScores[mCount - 1] = score;
+        mTimes[mCount - 1] = time;
+        return moveUp(mCount - 1);
+    }
+
+    private int moveUp(int index) {
+        while (index > 0 && mScores[index] > mScores[index - 1]) {
+            swap(index, index - 1);
+            index--;
+        }
+        return index;
+    }
+
+    private void swap(int a, int b) {
+        int score = mScores[a];
+        mScores[a] = mScores[b];
+        mScores[b] = score;
+        long time = mTimes[a];
+        mTimes[a] = mTimes[b];
+        mTimes[b] = time;
+    }
+
+    // One "score time" line per entry, best first
+    private void load() {
+        File file = new File(mDir, FILE_NAME);
+        File old = new File(mDir, OLD_FILE_NAME);
+        synchronized (this) {
+            if (file.exists()) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        int space = line.indexOf(' ');
+                        if (space < 0) {
+                            continue;
+                        }
+                        insert(Integer.parseInt(line.substring(0, space)),
+                                Long.parseLong(line.substring(space + 1)));
+                    }
+                } catch (IOException | NumberFormatException e) {
+                    Log.e(TAG, "Error reading high scores", e);
+                }
+            } else if (old.exists()) {
+                try (BufferedReader reader = new BufferedReader(new FileReader(old))) {
+                    // The old file didn't say when, the last time it was written is close enough
+                    insert(Integer.parseInt(reader.readLine().trim()), old.lastModified());
+                } catch (IOException | RuntimeException e) {
+                    Log.e(TAG, "Error reading old high score", e);
+                }
+                queueWrite();
+            }
+            mBest = mCount > 0 ? mScores[0] : 0;
+        }
+    }
+
+    // Writes the board to a temporary file and renames it over the real one,
+    // so a crash part way through leaves the last complete board behind
+    private void write() {
+        int count;
+        int[] scores = new int[MAX_ENTRIES];
+        long[] times = new long[MAX_ENTRIES];
+        synchronized (this) {
+            count = mCount;
+            System.arraycopy(mScores, 0, scores, 0, count);
+            System.arraycopy(mTimes, 0, times, 0, count);
+        }
+        File file = new File(mDir, FILE_NAME);
+        File temp = new File(mDir, FILE_NAME + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"));
+            for (int i = 0; i < count; i++) {
+                writer.write(scores[i] + " " + times[i]);
+                writer.newLine();
+            }
+            writer.flush();
+            // Make sure it's on disk before the rename makes it the real file
+            out.getFD().sync();
+        } catch (IOException e) {
+            Log.e(TAG, "Error saving high scores", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "Error replacing high scores");
+            temp.delete();
+            return;
+        }
+        // Everything is in the new file now
+        new File(mDir, OLD_FILE_NAME).delete();
+    }
+}
@@ -0,0 +1,162 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+// Draws the score, overlays and other text on top of the game.
+// All the paints and strings are set up once, and numbers are written
+// into reused char buffers, so drawing a frame doesn't allocate anything
+class Hud {
+    private static final String HIGHSCORE_PREFIX = "Highscore: ";
+    private static final String FINAL_PREFIX = "Final Score:";
+    private static final String NAMES = "Kiranjot, Imren, Marilyn, Savannah <3";
+    // Enough room for the sign and every digit of an int
+    private static final int MAX_INT_CHARS = 11;
+
+    private final Paint mScorePaint;
+    private final Paint mFinalPaint;
+    private final Paint mGameOverPaint;
+    private final Paint mPausedPaint;
+    private final Paint mPausedOutlinePaint;
+    private final Paint mNamesPaint;
+    private final Paint mHomePaint;
+
+    private final String mTapToPlayText;
+    // measureText on the names only ever gives one answer
+    private final float mNamesWidth;
+
+    // Text buffers and the value each one currently holds
+    private final char[] mScoreChars = new char[MAX_INT_CHARS];
+    private int mScoreLength;
+    private int mScoreValue;
+    private final char[] mHighscoreChars = new char[HIGHSCORE_PREFIX.length() + MAX_INT_CHARS];
+    private int mHighscoreLength;
+    private int mHighscoreValue;
+    private final char[] mFinalChars = new char[FINAL_PREFIX.length() + MAX_INT_CHARS];
+    private int mFinalLength;
+    private int mFinalValue;
+
+    // base carries the game font, every paint here starts from a copy of it
+    Hud(Context context, Paint base) {
+        mScorePaint = new Paint(base);
+        mScorePaint.setColor(Color.WHITE);
+        mScorePaint.setTextSize(80);
+
+        mFinalPaint = new Paint(base);
+        mFinalPaint.setColor(Color.WHITE);
+        mFinalPaint.setTextSize(100);
+        mFinalPaint.setTextAlign(Paint.Align.CENTER);
+
+        mGameOverPaint = new Paint(base);
+        mGameOverPaint.setColor(Color.RED);
+        mGameOverPaint.setTextSize(100);
+        mGameOverPaint.setTextAlign(Paint.Align.CENTER);
+
+        mPausedPaint = new Paint(base);
+        mPausedPaint.setColor(Color.WHITE);
+        mPausedPaint.setTextSize(250);
+
+        mPausedOutlinePaint = new Paint(base);
+        mPausedOutlinePaint.setColor(Color.BLACK); // Outline color
+        mPausedOutlinePaint.setStyle(Paint.Style.STROKE); // Outline style
+        mPausedOutlinePaint.setStrokeWidth(8); // Outline width
+        mPausedOutlinePaint.setTextSize(250);
+
+        mNamesPaint = new Paint(base);
+        mNamesPaint.setColor(Color.WHITE);
+        mNamesPaint.setTextSize(50);
+
+        mHomePaint = new Paint(base);
+        mHomePaint.setColor(Color.WHITE);
+        mHomePaint.setTextSize(100);
+
+        mTapToPlayText = context.getResources().getString(R.string.tap_to_play);
+        mNamesWidth = mNamesPaint.measureText(NAMES);
+
+        // Fill the buffers so the first frame has something to show
+        mScoreLength = writeInt(mScoreChars, 0, 0);
+        mHighscoreLength = writePrefixed(mHighscoreChars, HIGHSCORE_PREFIX, 0);
+        mFinalLength = writePrefixed(mFinalChars, FINAL_PREFIX, 0);
+    }
+
+    // Renders the current score and highscore in the top-left corner
+    void drawScore(Canvas canvas, int score, int highscore) {
+        if (score != mScoreValue) {
+            mScoreValue = score;
+            mScoreLength = writeInt(mScoreChars, 0, score);
+        }
+        if (highscore != mHighscoreValue) {
+            mHighscoreValue = highscore;
+            mHighscoreLength = writePrefixed(mHighscoreChars, HIGHSCORE_PREFIX, highscore);
+        }
+        canvas.drawText(mScoreChars, 0, mScoreLength, 20, 120, mScorePaint);
+        canvas.drawText(mHighscoreChars, 0, mHighscoreLength, 20, 250, mScorePaint);
+    }
+
+    // Draws the player's final score, above the game over text
+    void drawFinal(Canvas canvas, int score) {
+        if (score != mFinalValue) {
+            mFinalValue = score;
+            mFinalLength = writePrefixed(mFinalChars, FINAL_PREFIX, score);
+        }
+        float x = (float) canvas.getWidth() / 2;
+        float y = (float) canvas.getHeight() / 2 - mFinalPaint.descent() - 180;
+        canvas.drawText(mFinalChars, 0, mFinalLength, x, y, mFinalPaint);
+    }
+
+    void drawGameOver(Canvas canvas) {
+        float x = (float) canvas.getWidth() / 2;
+        float y = (float) canvas.getHeight() / 2 - mGameOverPaint.descent() - 50;
+        canvas.drawText("Game Over", x, y, mGameOverPaint);
+    }
+
+    // Outlined "tap to play" text shown while paused
+    void drawPausedText(Canvas canvas) {
+        // Draws the outline first, then the main text exactly over it
+        canvas.drawText(mTapToPlayText, 200, 700, mPausedOutlinePaint);
+        canvas.drawText(mTapToPlayText, 200, 700, mPausedPaint);
+    }
+
+    // Draws the names to the left of the pause button
+    void drawNames(Canvas canvas, int pauseButtonWidth, int pauseButtonMargin) {
+        int xStart = canvas.getWidth() - pauseButtonWidth - pauseButtonMargin - (int) mNamesWidth - 20;
+        int yStart = pauseButtonMargin + 50;
+        canvas.drawText(NAMES, xStart, yStart, mNamesPaint);
+    }
+
+    void drawHomeText(Canvas canvas) {
+        int x = canvas.getWidth() / 2;
+        int y = canvas.getHeight() / 2;
+        canvas.drawText("CSC 133 Minecraft Java Edition", x - 900, y, mHomePaint);
+        canvas.drawText("Tap to Start our Game!", x - 600, y + 100, mHomePaint);
+    }
+
+    // Copies prefix into the start of out and the number after it, returns the length
+    private static int writePrefixed(char[] out, String prefix, int value) {
+        prefix.getChars(0, prefix.length(), out, 0);
+        return writeInt(out, prefix.length(), value);
+    }
+
+    // Writes value in decimal at out[start], returns where the text ends
+    static int writeInt(char[] out, int start, int value) {
+        // Work with the negative so Integer.MIN_VALUE doesn't overflow
+        boolean negative = value < 0;
+        int n = negative ? value : -value;
+        int digits = 1;
+        for (int rest = n / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int pos = start;
+        if (negative) {
+            out[pos++] = '-';
+        }
+        int end = pos + digits;
+        for (int i = end - 1; i >= pos; i--) {
+            out[i] = (char) ('0' - n % 10);
+            n /= 10;
+        }
+        return end;
+    }
+}
@@ -0,0 +1,193 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+
+import com.gamecodeschool.snakeysnake.engine.Pickup;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+import com.gamecodeschool.snakeysnake.engine.WallLayout;
+
+// Keeps the parts of the game screen that rarely change (background, walls,
+// pause button, names) in an offscreen bitmap, and works out which pixels
+// changed since the last frame so SnakeGame can lock just that region
+class LayeredRenderer {
+    // What kind of screen a frame showed, a change forces a full redraw
+    static final int MODE_HOME = 0;
+    static final int MODE_PAUSED = 1;
+    static final int MODE_PLAYING = 2;
+
+    private final int mBlockSize;
+    private final Snake mSnake;
+    private final SnakeBody mBody;
+    private final WallLayout mWallLayout;
+    private final Pickup[] mPickups;
+    // What part of the board is on screen
+    private final Camera mCamera;
+
+    // The background with everything static composited on top
+    private Bitmap mStaticLayer;
+    private Canvas mStaticCanvas;
+    // Wall version the static layer was built from
+    private int mStaticWallVersion = -1;
+
+    // What the last frame showed
+    private int mLastMode = -1;
+    private boolean mInvalidated = true;
+    private long mLastMoveCount;
+    private float mLastAlpha;
+    private int mLastScore;
+    private int mLastHighscore;
+    private final Rect mLastHead = new Rect();
+    private final Rect mLastTail = new Rect();
+    // x, y, type and active flag of each pickup packed into one int
+    private final int[] mLastPickups;
+
+    // Reused rectangles so frames don't allocate
+    private final Rect mDirty = new Rect();
+    private final Rect mScratch = new Rect();
+
+    LayeredRenderer(int blockSize, Camera camera, Snake snake, SnakeBody body, WallLayout wallLayout, Pickup... pickups) {
+        this.mBlockSize = blockSize;
+        this.mCamera = camera;
+        this.mSnake = snake;
+        this.mBody = body;
+        this.mWallLayout = wallLayout;
+        this.mPickups = pickups;
+        this.mLastPickups = new int[pickups.length];
+    }
+
+    // The next frame redraws everything, used when the surface comes back
+    void invalidate() {
+        mInvalidated = true;
+    }
+
+    // Does the static layer need rebuilding for a surface of this size?
+    boolean isStaticLayerStale(int width, int height) {
+        return mStaticLayer == null
+                || mStaticLayer.getWidth() != width
+                || mStaticLayer.getHeight() != height
+                || mStaticWallVersion != mWallLayout.getVersion();
+    }
+
+    // Returns a cleared canvas to draw the static layer on, finish with endStaticLayer()
+    Canvas beginStaticLayer(int width, int height) {
+        if (mStaticLayer == null || mStaticLayer.getWidth() != width || mStaticLayer.getHeight() != height) {
+            if (mStaticLayer != null) {
+                mStaticLayer.recycle();
+            }
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mStaticCanvas = new Canvas(mStaticLayer);
+        }
+        mStaticLayer.eraseColor(0);
+        return mStaticCanvas;
+    }
+
+    void endStaticLayer() {
+        mStaticWallVersion = mWallLayout.getVersion();
+        // Everything on screen sits on top of the static layer
+        mInvalidated = true;
+    }
+
+    // Copies the static layer into the given region, or all of it when region is null
+    void drawStaticLayer(Canvas canvas, Rect region) {
+        if (region == null) {
+            canvas.drawBitmap(mStaticLayer, 0, 0, null);
+        } else {
+            canvas.drawBitmap(mStaticLayer, region, region, null);
+        }
+    }
+
+    // Does this frame have to be drawn from scratch?
+    boolean needsFullFrame(int mode) {
+        // More than one move since the last frame leaves changed cells
+        // in the middle of the body, so just redraw the lot. A scrolling
+        // board moves under everything, so it's always redrawn.
+        return mInvalidated || mode != mLastMode || mBody.getMoveCount() - mLastMoveCount > 1
+                || mCamera.isScrolling();
+    }
+
+    // Works out the region that changed since the last frame while playing.
+    // Returns false when nothing changed and the frame can be skipped.
+    boolean computeDirty(float alpha, int score, int highscore, Rect hud) {
+        mDirty.setEmpty();
+        boolean moved = mBody.getMoveCount() != mLastMoveCount;
+        if (mBody.getLength() > 0 && (moved || alpha != mLastAlpha)) {
+            // Where the head and tail were last frame and the cells they move between now
+            mDirty.union(mLastHead);
+            mDirty.union(mLastTail);
+            unionCell(mBody.getPrevHeadX(), mBody.getPrevHeadY());
+            unionCell(mBody.getHeadX(), mBody.getHeadY());
+            unionCell(mBody.getPrevTailX(), mBody.getPrevTailY());
+            int tail = mBody.segmentAt(mBody.getLength() - 1);
+            unionCell(SnakeBody.cellX(tail), SnakeBody.cellY(tail));
+        }
+        for (int i = 0; i < mPickups.length; i++) {
+            int state = packPickup(mPickups[i]);
+            if (state != mLastPickups[i]) {
+                // Both where it was and where it is now, if it was on the board
+                if (isPackedActive(mLastPickups[i])) {
+                    unionCell(unpackX(mLastPickups[i]), unpackY(mLastPickups[i]));
+                }
+                if (isPackedActive(state)) {
+                    unionCell(mPickups[i].getX(), mPickups[i].getY());
+                }
+            }
+        }
+        if (score != mLastScore || highscore != mLastHighscore) {
+            mDirty.union(hud);
+        }
+        return !mDirty.isEmpty();
+    }
+
+    // The region to lock, SurfaceHolder.lockCanvas(Rect) may grow it
+    Rect getDirty() {
+        return mDirty;
+    }
+
+    // Remembers what this frame showed for the next computeDirty()
+    void frameDrawn(int mode, float alpha, int score, int highscore) {
+        mLastMode = mode;
+        mInvalidated = false;
+        mLastMoveCount = mBody.getMoveCount();
+        mLastAlpha = alpha;
+        mLastScore = score;
+        mLastHighscore = highscore;
+        if (mBody.getLength() > 0) {
+            mSnake.segmentRect(0, alpha, mLastHead);
+            mSnake.segmentRect(mBody.getLength() - 1, alpha, mLastTail);
+        } else {
+            mLastHead.setEmpty();
+            mLastTail.setEmpty();
+        }
+        for (int i = 0; i < mPickups.length; i++) {
+            mLastPickups[i] = packPickup(mPickups[i]);
+        }
+    }
+
+    private void unionCell(int x, int y) {
+        mScratch.set(x * mBlockSize, y * mBlockSize, (x + 1) * mBlockSize, (y + 1) * mBlockSize);
+        mDirty.union(mScratch);
+    }
+
+    // Only used when the whole board is on screen, so cells fit in 12 bits
+    // each, leaving room for the type and active flag
+    private static int packPickup(Pickup pickup) {
+        int x = pickup.getX() & 0xFFF;
+        int y = pickup.getY() & 0xFFF;
+        int active = pickup.isActive() ? 1 : 0;
+        return (active << 31) | (pickup.getType().getId() << 24) | (x << 12) | y;
+    }
+
+    private static boolean isPackedActive(int packed) {
+        return packed < 0;
+    }
+
+    private static int unpackX(int packed) {
+        return (packed >> 12) & 0xFFF;
+    }
+
+    private static int unpackY(int packed) {
+        return packed & 0xFFF;
+    }
+}
@@ -1,15 +1,15 @@
 package com.gamecodeschool.snakeysnake;
 
-import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Matrix;
 import android.graphics.Paint;
 import android.graphics.Point;
+import android.graphics.Rect;
 import android.view.MotionEvent;
-import java.util.ArrayList;
+
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
 
 abstract class MainObject implements GameObject, Movable, Drawable {
     protected Point location;
@@ -33,129 +33,45 @@ abstract class MainObject implements GameObject, Movable, Drawable {
 
 class Snake extends MainObject {
 
-    // The location in the grid of all the segments
-    private final ArrayList<Point> segmentLocations;
+    // The engine's snake that this draws
+    private final SnakeBody mBody;
+
+    // Handed out by getLocation() and kept in step with the head
+    private final Point mHeadLocation = new Point();
+    // Reused while drawing so frames don't allocate
+    private final Rect mSegmentRect = new Rect();
 
     // How big is each segment of the snake?
     private final int mSegmentSize;
 
-    // How big is the entire grid
-    private final Point mMoveRange;
-
     // Where is the centre of the screen
     // horizontally in pixels?
     private final int halfWayPoint;
     private int w;
     private int h;
 
-    // For tracking movement Heading
-    private enum Heading {
-        UP, RIGHT, DOWN, LEFT
-    }
-
-    // Start by heading to the right
-    private Heading heading = Heading.RIGHT;
-
-    // A bitmap for each direction the head can face
-    private Bitmap mBitmapHeadRight;
-    private Bitmap mBitmapHeadLeft;
-    private Bitmap mBitmapHeadUp;
-    private Bitmap mBitmapHeadDown;
+    // Holds the body and a head facing each direction
+    private final SpriteAtlas mAtlas;
 
-    // A bitmap for the body
-    private Bitmap mBitmapBody;
-
-    private boolean isBoosted = false; //is the snake currently sped up?
-    private boolean isSlowed = false; //is the snake currently slowed
-    private long speedBoostLength = 0; //how long the speed boost lasts
-    private boolean gameOver = false;
     private SnakeGame mSnakeGame;
 
-     Snake(Context context, Point mr, int ss) {
-
-        // Initialize our ArrayList
-        this.segmentLocations = new ArrayList<>();
-
-        // Initialize the segment size and movement
-        // range from the passed in parameters
-        this.mSegmentSize = ss;
-        this.mMoveRange = mr;
-
-        // Create and scale the bitmaps
-        mBitmapHeadRight = BitmapFactory
-                .decodeResource(context.getResources(),
-                        R.drawable.head);
-
-        // Create 3 more versions of the head for different headings
-        mBitmapHeadLeft = BitmapFactory
-                .decodeResource(context.getResources(),
-                        R.drawable.head);
-
-        mBitmapHeadUp = BitmapFactory
-                .decodeResource(context.getResources(),
-                        R.drawable.head);
-
-        mBitmapHeadDown = BitmapFactory
-                .decodeResource(context.getResources(),
-                        R.drawable.head);
-
-        // Modify the bitmaps to face the snake head
-        // in the correct direction
-        mBitmapHeadRight = Bitmap
-                .createScaledBitmap(mBitmapHeadRight,
-                        ss, ss, false);
-
-        // A matrix for scaling
-        Matrix matrix = new Matrix();
-        matrix.preScale(-1, 1);
-
-        mBitmapHeadLeft = Bitmap
-                .createBitmap(mBitmapHeadRight,
-                        0, 0, ss, ss, matrix, true);
-
-        // A matrix for rotating
-        matrix.preRotate(-90);
-        mBitmapHeadUp = Bitmap
-                .createBitmap(mBitmapHeadRight,
-                        0, 0, ss, ss, matrix, true);
-
-        // Matrix operations are cumulative
-        // so rotate by 180 to face down
-        matrix.preRotate(180);
-        mBitmapHeadDown = Bitmap
-                .createBitmap(mBitmapHeadRight,
-                        0, 0, ss, ss, matrix, true);
-
-        // Create and scale the body
-        mBitmapBody = BitmapFactory
-                .decodeResource(context.getResources(),
-                        R.drawable.body);
-
-        mBitmapBody = Bitmap
-                .createScaledBitmap(mBitmapBody,
-                        ss, ss, false);
+     Snake(SpriteAtlas atlas, Point mr, SnakeBody body) {
+
+        // Initialize the segment size and the snake
+        // to draw from the passed in parameters
+        this.mSegmentSize = atlas.getSize();
+        this.mBody = body;
+        this.mAtlas = atlas;
 
         // The halfway point across the screen in pixels
         // Used to detect which side of screen was pressed
-        halfWayPoint = mr.x * ss / 2;
+        halfWayPoint = mr.x * mSegmentSize / 2;
     }
 
     void setGame(SnakeGame mSnakeGame) {
          this.mSnakeGame = mSnakeGame;
     }
 
-    // Overloaded reset method to reset with a custom length
-    void reset(int w, int h, int length) {
-        heading = Heading.RIGHT;
-        segmentLocations.clear();
-
-        // Start with a snake of the specified length
-        for (int i = 0; i < length; i++) {
-            segmentLocations.add(new Point(w / 2 - i, h / 2));
-        }
-    }
-
-    // Get the snake ready for a new game
     public void setW(int w) {
         this.w = w;
     }
@@ -168,174 +84,115 @@ class Snake extends MainObject {
     public int getH(){
         return h;
     }
-    void reset(int w, int h) {
-        // Reset the heading
-        heading = Heading.RIGHT;
-
-        // Delete the old contents of the ArrayList
-        segmentLocations.clear();
-
-        // Start with a single snake segment
-        segmentLocations.add(new Point(w / 2, h / 2));
-
-        //Game is Over, reset so the Game Over message doesnt show
-        gameOver=false;
-    }
-
-    //method to activate the speed boost
-    void activateSpeedBoost(long duration) {
-         isBoosted = true;
-         mSnakeGame.update(2);
-         speedBoostLength = System.currentTimeMillis() + duration;
-    }
-
-    //method to activate speed decrease
-    void activateSpeedDecrease(long duration) {
-         isSlowed = true;
-         mSnakeGame.update(0);
-         speedBoostLength = System.currentTimeMillis() + duration;
-    }
-
-    public void applySpeedBoost(int steps, int boostDuration) {
-        isBoosted = true;
-        speedBoostLength = System.currentTimeMillis() + boostDuration;
-        move(steps);
-    }
-
-    public void applySpeedDecrease(int steps, int boostDuration) {
-        isSlowed = true;
-        speedBoostLength = System.currentTimeMillis() + boostDuration;
-        move(steps);
-    }
 
+    // The snake moves itself inside the engine
     @Override
     public void move() {
-        move(1); // Call move(double steps) with a default step of 1
     }
 
-    // Overloaded move method to move multiple steps
-    void move(int steps) {
-        for (int i = 0; i < steps; i++) {
-            moveSteps(steps);
-        }
-    }
+    @Override
+    public void draw(Canvas canvas, Paint paint) {
+        draw(canvas, paint, 1f, null);
+    }
+
+    // Draws the snake alpha of the way into the current tick. Only the head and
+    // tail slide between cells, the body segments stay put, so each frame
+    // changes just the cells at the two ends. Segments outside clip are skipped.
+    void draw(Canvas canvas, Paint paint, float alpha, Rect clip) {
+        // Don't run this code if the snake has no segments
+        if (mBody.getLength() > 0) {
+            // Draw the snake body one block at a time, tail first so the head ends on top
+            for (int i = mBody.getLength() - 1; i > 0; i--) {
+                segmentRect(i, alpha, mSegmentRect);
+                if (clip == null || Rect.intersects(clip, mSegmentRect)) {
+                    mAtlas.draw(canvas, SpriteAtlas.SNAKE_BODY, mSegmentRect, paint);
+                }
+            }
 
-    //Helper method to perform movement
-    private void moveSteps(int steps) {
-         // Move the body segments, from the back to the position of the segment in front
-        for (int i = segmentLocations.size() - 1; i > 0; i--) {
-            // Make it the same value as the next segment going forwards towards the head
-            segmentLocations.get(i).x = segmentLocations.get(i - 1).x;
-            segmentLocations.get(i).y = segmentLocations.get(i - 1).y;
+            drawHead(canvas, paint, alpha);
         }
+    }
 
-        // Move the head in the appropriate heading
-        // Get the existing head position
-        Point p = segmentLocations.get(0);
-        // Move it appropriately
-        switch (heading) {
-            case UP:
-                p.y -= steps;
+    // Draws the head facing the way it's going, then the game over text if it died
+    private void drawHead(Canvas canvas, Paint paint, float alpha) {
+        int head;
+        switch (mBody.getHeading()) {
+            case LEFT:
+                head = SpriteAtlas.SNAKE_HEAD_LEFT;
                 break;
-            case RIGHT:
-                p.x += steps;
+            case UP:
+                head = SpriteAtlas.SNAKE_HEAD_UP;
                 break;
             case DOWN:
-                p.y += steps;
-                break;
-            case LEFT:
-                p.x -= steps;
+                head = SpriteAtlas.SNAKE_HEAD_DOWN;
                 break;
-        }
-    }
-
-    boolean detectDeath(Wall mWall) {
-         Point head = segmentLocations.get(0);
-        // Check boundary collision
-        boolean dead = head.x == -1 || head.x > mMoveRange.x || head.y == -1 || head.y > mMoveRange.y;
-        // Check self-collision
-        for (int i = segmentLocations.size() - 1; i > 0; i--) {
-            if (head.equals(segmentLocations.get(i))) {
-                dead = true;
+            case RIGHT:
+            default:
+                head = SpriteAtlas.SNAKE_HEAD_RIGHT;
                 break;
-            }
         }
+        segmentRect(0, alpha, mSegmentRect);
+        mAtlas.draw(canvas, head, mSegmentRect, paint);
 
-        // Check wall collision
-        if (mWall != null && mWall.checkCollision(head)) {
-            dead = true;
+        if (mBody.isGameOver() && mSnakeGame != null) {
+            mSnakeGame.drawGameOver(canvas, paint);
         }
-        if(dead) {
-            gameOver = true;
-        }
-        return dead;
     }
 
-    boolean checkDinner(Point l) {
-         if(!segmentLocations.isEmpty() && segmentLocations.get(0).x == l.x &&
-                 segmentLocations.get(0).y == l.y) {
-            segmentLocations.add(new Point(-10, -10));
-            return true;
+    // Draws the part of the snake in a block of cells, for a board that
+    // scrolls. The body comes straight from the grid's cells, so the cost goes
+    // with what's on screen however long the snake is. Only the head and tail
+    // slide, so they're drawn from the body as usual.
+    void drawCells(Canvas canvas, Paint paint, float alpha, OccupancyGrid grid, Rect cells) {
+        int length = mBody.getLength();
+        if (length == 0) {
+            return;
         }
-        return false;
-    }
-
-    @Override
-    public void draw(Canvas canvas, Paint paint) {
-        // Don't run this code if ArrayList has nothing in it
-        if (!segmentLocations.isEmpty()) {
-            // All the code from this method goes here
-            // Draw the head
-            switch (heading) {
-                case RIGHT:
-                    canvas.drawBitmap(mBitmapHeadRight,
-                            segmentLocations.get(0).x
-                                    * mSegmentSize,
-                            segmentLocations.get(0).y
-                                    * mSegmentSize, paint);
-                    break;
-
-                case LEFT:
-                    canvas.drawBitmap(mBitmapHeadLeft,
-                            segmentLocations.get(0).x
-                                    * mSegmentSize,
-                            segmentLocations.get(0).y
-                                    * mSegmentSize, paint);
-                    break;
-
-                case UP:
-                    canvas.drawBitmap(mBitmapHeadUp,
-                            segmentLocations.get(0).x
-                                    * mSegmentSize,
-                            segmentLocations.get(0).y
-                                    * mSegmentSize, paint);
-                    break;
-
-                case DOWN:
-                    canvas.drawBitmap(mBitmapHeadDown,
-                            segmentLocations.get(0).x
-                                    * mSegmentSize,
-                            segmentLocations.get(0).y
-                                    * mSegmentSize, paint);
-                    break;
-            }
-
-            // Draw the snake body one block at a time
-            for (int i = 1; i < segmentLocations.size(); i++) {
-                canvas.drawBitmap(mBitmapBody,
-                        segmentLocations.get(i).x
-                                * mSegmentSize,
-                        segmentLocations.get(i).y
-                                * mSegmentSize, paint);
-            }
-            if (gameOver) {
-                mSnakeGame.drawGameOver(canvas, paint);
+        int head = mBody.segmentAt(0);
+        int tail = mBody.segmentAt(length - 1);
+        for (int y = cells.top; y < cells.bottom; y++) {
+            for (int x = cells.left; x < cells.right; x++) {
+                if (grid.has(x, y, OccupancyGrid.SNAKE)) {
+                    int cell = SnakeBody.cellOf(x, y);
+                    if (cell != head && cell != tail) {
+                        mAtlas.draw(canvas, SpriteAtlas.SNAKE_BODY, x * mSegmentSize, y * mSegmentSize, paint);
+                    }
+                }
             }
         }
+        if (length > 1) {
+            segmentRect(length - 1, alpha, mSegmentRect);
+            mAtlas.draw(canvas, SpriteAtlas.SNAKE_BODY, mSegmentRect, paint);
+        }
+        drawHead(canvas, paint, alpha);
+    }
+
+    // The pixels segment i covers when drawn alpha of the way into the tick
+    void segmentRect(int i, float alpha, Rect out) {
+        int cell = mBody.segmentAt(i);
+        int x = SnakeBody.cellX(cell);
+        int y = SnakeBody.cellY(cell);
+        int fromX = x;
+        int fromY = y;
+        if (i == 0) {
+            fromX = mBody.getPrevHeadX();
+            fromY = mBody.getPrevHeadY();
+        } else if (i == mBody.getLength() - 1) {
+            fromX = mBody.getPrevTailX();
+            fromY = mBody.getPrevTailY();
+        }
+        int left = x * mSegmentSize;
+        int top = y * mSegmentSize;
+        // Only slide between neighbouring cells, jumps (boosts, resets) snap
+        if (Math.abs(x - fromX) + Math.abs(y - fromY) == 1) {
+            left = Math.round((fromX + (x - fromX) * alpha) * mSegmentSize);
+            top = Math.round((fromY + (y - fromY) * alpha) * mSegmentSize);
+        }
+        out.set(left, top, left + mSegmentSize, top + mSegmentSize);
     }
 
     public boolean isGameOver() {
-        return gameOver;
+        return mBody.isGameOver();
     }
 
 
@@ -357,45 +214,14 @@ class Snake extends MainObject {
     @Override
     public Point getLocation() {
         // Return the location of the snake head
-        return segmentLocations.get(0);
-    }
-
-    //getter for isBoosted
-    public boolean isBoosted() {
-         return isBoosted;
-    }
-    //getter for isSlowed
-    public boolean isSlowed() {
-         return isSlowed;
+        mHeadLocation.set(mBody.getHeadX(), mBody.getHeadY());
+        return mHeadLocation;
     }
 
     // Handle changing direction
-    void switchHeading(MotionEvent motionEvent) {
-         if(motionEvent.getX() >= halfWayPoint) {
-             heading = rotateClockwise(heading);
-         }
-         else {
-             heading = rotateCounterClockwise(heading);
-        }
-    }
-
-    /*
-    Ordinal values:
-    UP - 0
-    DOWN - 1
-    RIGHT - 2
-    LEFT - 3
-     */
-
-    private Heading rotateClockwise(Heading currDirection) {
-         int index = currDirection.ordinal();
-         index = (index + 1) % 4;
-         return Heading.values()[index];
+    // Taps on the right half of the screen turn clockwise, the left half the other way.
+    // Only looks at the tap, the turn itself happens on the game thread.
+    boolean isClockwiseTap(MotionEvent motionEvent) {
+        return motionEvent.getX() >= halfWayPoint;
     }
-
-    private Heading rotateCounterClockwise(Heading currDirection) {
-         int index = currDirection.ordinal();
-         index = (index - 1 + 4) % 4;
-         return Heading.values()[index];
-    }
-}
\ No newline at end of file
+}
@@ -33,20 +33,20 @@ public class SnakeActivity extends Activity {
     protected void onResume() {
         super.onResume();
         mSnakeGame.resume();
-        mSnakeGame.resumeMusic();
+        mSnakeGame.resumeAudio();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
         mSnakeGame.pause();
-        mSnakeGame.pauseMusic();
+        mSnakeGame.pauseAudio();
     }
 
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        mSnakeGame.stopMusic();
+        mSnakeGame.releaseAudio();
     }
 
 }
\ No newline at end of file
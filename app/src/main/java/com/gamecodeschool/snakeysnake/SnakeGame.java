@@ -1,25 +1,27 @@
 package com.gamecodeschool.snakeysnake;
 import android.content.Context;
-import android.content.res.AssetManager;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Point;
-import android.media.AudioAttributes;
-import android.media.SoundPool;
+import android.graphics.Rect;
 import android.view.MotionEvent;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 // added these for pause button
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 
 // added this for font
 import android.graphics.Typeface;
@@ -27,11 +29,19 @@ import android.graphics.Typeface;
 // added this for debug and errors
 import android.util.Log;
 
-import java.util.ArrayList;
+// added these for the vsync paced game loop
+import android.os.Looper;
+import android.view.Choreographer;
+
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+import com.gamecodeschool.snakeysnake.engine.GameEvents;
+import com.gamecodeschool.snakeysnake.engine.GameSnapshot;
+import com.gamecodeschool.snakeysnake.engine.GameState;
+import com.gamecodeschool.snakeysnake.engine.InputQueue;
+import com.gamecodeschool.snakeysnake.engine.Pickup;
+import com.gamecodeschool.snakeysnake.engine.PickupPool;
+import com.gamecodeschool.snakeysnake.engine.ReplayRecorder;
 
-import android.content.res.AssetManager;
-import android.content.res.AssetFileDescriptor;
-import android.media.MediaPlayer;
 import android.util.Log;
 import java.io.IOException;
 
@@ -55,75 +65,145 @@ class SnakeGame extends SurfaceView implements Runnable {
 
     // Objects for the game loop/thread
     private Thread mThread = null;
-    // Control pausing between updates
-    private long mNextFrameTime;
+    // Looper of the game thread when it is paced by Choreographer
+    private volatile Looper mLooper = null;
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            onVsync(frameTimeNanos);
+        }
+    };
+    // Tick rate and render rate caps for the loop, only changed on the game thread
+    private volatile GameLoopConfig mLoopConfig = GameLoopConfig.defaults();
+    // A config set from another thread, picked up at the start of the next frame
+    private final AtomicReference<GameLoopConfig> mPendingLoopConfig = new AtomicReference<>();
+    // Simulation time that has passed but not been ticked yet
+    private long mAccumulatorNanos;
+    private long mLastLoopTime;
+    private long mLastRenderTime;
+    // Tick and draw timings, off unless someone turns them on
+    private final FrameStats mStats = new FrameStats();
     // Is the game currently playing and or paused?
     private volatile boolean mPlaying = false;
-    private volatile boolean mPaused = true;
+    // Only changed on the game thread once it is running
+    private boolean mPaused = true;
 
     // welcome screen
     private boolean mShowHome = true;
 
-    // for playing sound effects
-    private SoundPool mSP;
-    private int mEat_ID = -1;
-    private int mCrashID = -1;
+    // Taps from the UI thread, drained by the game thread in applyInputs()
+    private final InputQueue mInput = new InputQueue(INPUT_CAPACITY);
+    private static final int INPUT_CAPACITY = 64;
+    // Where a tap landed
+    private static final int INPUT_TAP_LEFT = 0;
+    private static final int INPUT_TAP_RIGHT = 1;
+    private static final int INPUT_TAP_PAUSE_BUTTON = 2;
 
-    private int mEdgeCollisionID = -1;
+    // Plays the sound effects and music on its own thread
+    private GameAudio mAudio;
 
 
-    // The size in segments of the playable area
-    private static int NUM_BLOCKS_WIDE = 40;
+    // How big the board is and how much of it the screen shows
+    private final BoardConfig mBoardConfig;
+    // The size in segments of the screen
+    private int mNumBlocksWide;
     private int mNumBlocksHigh;
+    // The size in segments of the playable area, bigger than the screen in a large arena
+    private int mBoardWidth;
+    private int mBoardHeight;
+    // Follows the snake when the board doesn't fit on screen
+    private Camera mCamera;
+    private final Rect mHeadRect = new Rect();
+
+    // The leaderboard, saved on DISK_WRITER
+    private HighScores mHighScores;
 
-    private int mScore;
-    private int highscore = 0;
+    // The rules and state of the game, with no Android types in them
+    private GameEngine mEngine;
 
     // Objects for drawing
     private Canvas mCanvas;
     private SurfaceHolder mSurfaceHolder;
     private Paint mPaint;
     private Snake mSnake;
-    private Apple mApple;
-    private Apple mGoldenApple;
-    private Apple mPoisonApple;
+    // One per slot in the engine's pickup pool, each draws only while its pickup is out
+    private Apple[] mApples;
     private Bitmap pauseButtonBitmap;
-    private SpawnUtil mSpawnUtil;
+    // Every bitmap the game draws is decoded once through here
+    private BitmapCache mBitmapCache;
+    private SpriteAtlas mAtlas;
+    private int mBlockSize;
+
+    // Loads the bitmaps, font and sounds off the UI thread, see pollAssets()
+    private AssetLoader mAssets;
+    private Future<Bitmap> mHomeBackgroundFuture;
+    private Future<Typeface> mFontFuture;
+    private Future<Bitmap> mGameBackgroundFuture;
+    private Future<Bitmap> mPauseButtonFuture;
+    private Future<SpriteAtlas> mAtlasFuture;
+    // Set once everything the game screens need has loaded
+    private volatile boolean mGameReady = false;
+    // The home screen is drawn once while the rest is still loading
+    private boolean mHomeDrawn = false;
+    // The autopilot's demo game behind the home screen, made once the sprites are in
+    private AttractMode mAttract;
+    private volatile boolean mAttractEnabled = true;
+    private long mAttractNanos;
+
+    // Size the backgrounds are scaled to
+    private static final int BACKGROUND_WIDTH = 2500;
+    private static final int BACKGROUND_HEIGHT = 1200;
 
     // Constants for the pause button
     private final int pauseButtonWidth = 100;
     private final int pauseButtonHeight = 100;
     private final int pauseButtonMargin = 30;
 
-    // Run at 10 frames per second
-    private final long TARGET_FPS = 10;
-    private final long MILLIS_PER_SECOND = 1000;
+    private static final long MILLIS_PER_SECOND = 1000;
+    // Never feed more than a quarter second into the accumulator at once
+    private static final long MAX_FRAME_NANOS = 250000000L;
     private Background background;
-    private ArrayList<PowerUp> mPowerUps;
-
-    private static final int BOOST_DURATION = 10000; //10 seconds
 
     private Wall mWall;
-    private long lastSpawnTime;
-    private final long COOLDOWN_DURATION = 5000; // 5 second cooldown
-
-    private MediaPlayer mMediaPlayer;
+    // Caches the static parts of the screen and tracks what changed
+    private LayeredRenderer mRenderer;
+    // Score and overlay text
+    private Hud mHud;
+    // Where the score and highscore text go, redrawn when either changes
+    private final Rect mHudRect = new Rect();
+    private static final int HUD_HEIGHT = 280;
+
+    // Writes files so the game thread doesn't have to wait on the disk. One for
+    // the whole process, shared by every SnakeGame the activity makes, and its
+    // thread goes away when there's nothing to write, so nothing has to shut it
+    // down and a write queued by pause() still finishes.
+    private static final ThreadPoolExecutor DISK_WRITER = new ThreadPoolExecutor(
+            1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+    static {
+        DISK_WRITER.allowCoreThreadTimeOut(true);
+    }
+    // The session up to the last death, for ReplayPlayer
+    private static final String REPLAY_FILE = "last_death.replay";
+    // The game in progress when the activity paused, picked up again next launch
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private boolean mRestored = false;
 
     public class Background {
         private Bitmap mBitmapBackground;
         private Bitmap mHomeScreenBackground;
         private Bitmap mCurrentBackground;
-        int width = 2500;
-        int height = 1200;
-
-        public Background(Context context) {
-            mBitmapBackground = BitmapFactory.decodeResource(context.getResources(), R.drawable.minecraftbackground);
-            mBitmapBackground = Bitmap.createScaledBitmap(mBitmapBackground, width, height, false);
-            mHomeScreenBackground = BitmapFactory.decodeResource(context.getResources(), R.drawable.homescreenbackground);
-            mHomeScreenBackground = Bitmap.createScaledBitmap(mHomeScreenBackground, width, height, false);
+
+        // The bitmaps arrive from the loader, the home screen's first
+        void setHomeBitmap(Bitmap bitmap) {
+            mHomeScreenBackground = bitmap;
             mCurrentBackground = mHomeScreenBackground; // homescreen as default
         }
 
+        void setGameBitmap(Bitmap bitmap) {
+            mBitmapBackground = bitmap;
+        }
+
         public void setGameBackground() {
             mCurrentBackground = mBitmapBackground;
         }
@@ -133,11 +213,17 @@ class SnakeGame extends SurfaceView implements Runnable {
         }
 
 
-        public void draw(Canvas canvas) {
-            if (mCurrentBackground != null) {
-                canvas.drawBitmap(mCurrentBackground, 0, 0, null);
+        // Always the in-game background, whatever screen is showing
+        public void drawGame(Canvas canvas) {
+            canvas.drawBitmap(mBitmapBackground, 0, 0, null);
+        }
+
+        // Always the home background, so drawing the home screen doesn't have to switch it
+        public void drawHome(Canvas canvas) {
+            if (mHomeScreenBackground != null) {
+                canvas.drawBitmap(mHomeScreenBackground, 0, 0, null);
             } else {
-                Log.e("Background", "No current background image to draw.");
+                Log.e("Background", "No home background image to draw.");
             }
         }
     }
@@ -145,29 +231,42 @@ class SnakeGame extends SurfaceView implements Runnable {
     // This is the constructor method that gets called
     // from com.gamecodeschool.snakeysnake.SnakeActivity
     public SnakeGame(Context context, Point size) {
+        this(context, size, BoardConfig.defaults());
+    }
+
+    // board can make the playing area far bigger than the screen, see BoardConfig
+    public SnakeGame(Context context, Point size, BoardConfig board) {
         super(context);
+        mBoardConfig = board;
+        mAssets = new AssetLoader();
         initGame();
 
         // Initializes the drawing objects
         initializeDrawingTools();
-        background = new Background(context);
-        // Loads and sets the custom font
-        setFont("minecraftfont.otf");
+        mBitmapCache = new BitmapCache(context.getResources());
+        background = new Background();
 
         // Calculates the size of each block based on the screen size
-        int blockSize = calculateBlockSize(size);
-        // Initializes game entities - Snake and Apple
-        initializeGameObjects(context, blockSize);
-        // Sets up the sound engine for the game
-        initializeSoundPool(context);
-
-        mWall = new Wall(context, new Point(NUM_BLOCKS_WIDE, mNumBlocksHigh), blockSize, 0);
+        mBlockSize = calculateBlockSize(size);
+        mCamera = new Camera(mBlockSize, mBoardWidth, mBoardHeight, size.x, size.y);
+        // The engine doesn't need any assets so it's ready straight away
+        initializeEngine();
+        // Starts decoding everything else on the loader threads
+        loadAssets(context);
+        // Sounds load on the audio thread, the game doesn't wait for them
+        mAudio = new GameAudio(context, mAssets);
+        mAudio.start();
+        mEngine.getEvents().addListener(mAudio);
     }
 
     // Overloaded constructor
     public SnakeGame(Context context, Point size, int initialScore) {
         this(context, size);  // Calls the existing constructor
-        mScore = initialScore;  // Sets the initial score
+        // A restored game keeps its own score
+        if (!mRestored) {
+            // Through the engine so the replay and the score listeners see it
+            mEngine.newGame(initialScore);
+        }
     }
 
     private void initializeDrawingTools() {
@@ -178,85 +277,192 @@ class SnakeGame extends SurfaceView implements Runnable {
 
     private int calculateBlockSize(Point size) {
         // Work out how many pixels each block is and how many blocks fit into the height
-        int blockSize = size.x / NUM_BLOCKS_WIDE;
+        mNumBlocksWide = mBoardConfig.getBlocksAcross();
+        int blockSize = size.x / mNumBlocksWide;
         mNumBlocksHigh = size.y / blockSize;
+        mBoardWidth = mBoardConfig.getBoardWidth(mNumBlocksWide);
+        mBoardHeight = mBoardConfig.getBoardHeight(mNumBlocksHigh);
         return blockSize;
     }
 
-    private void initializeGameObjects(Context context, int blockSize) {
-        // Loads the pause button graphic and initializes the Apple and Snake objects
-        pauseButtonBitmap = loadScaledBitmap(context, R.drawable.pause_button, pauseButtonWidth, pauseButtonHeight);
-
-        // Initialize game objects
-        mApple = new Apple(context, new Point(NUM_BLOCKS_WIDE, mNumBlocksHigh), blockSize);
-        mApple.setmSnakeGame(this); // Set SnakeGame instance
-
-        mSnake = new Snake(context, new Point(NUM_BLOCKS_WIDE, mNumBlocksHigh), blockSize);
-
-        mGoldenApple = new Apple(context, new Point(NUM_BLOCKS_WIDE, mNumBlocksHigh), blockSize);
-        mPoisonApple = new Apple(context, new Point(NUM_BLOCKS_WIDE, mNumBlocksHigh), blockSize);
+    private void initializeEngine() {
+        mEngine = new GameEngine(mBoardWidth, mBoardHeight, System.nanoTime());
+        mEngine.setTickMillis(MILLIS_PER_SECOND / mLoopConfig.getTicksPerSecond());
+        mRestored = restoreSnapshot();
+        if (mRestored) {
+            // Back where we left off, waiting on the pause button
+            mShowHome = false;
+            mPaused = true;
+            mHighScores.startRun(System.currentTimeMillis());
+            checkScore();
+        }
+        mEngine.getEvents().addListener(mGameListener);
+        // Record the whole session so a death can be played back later,
+        // starting from the restored game if there was one
+        mEngine.startRecording();
+        if (mBoardConfig.isLargeArena()) {
+            // One apple would be lost in a board that size
+            mEngine.setPickupCount(GameState.MAX_PICKUPS);
+        }
+    }
 
-        mPowerUps = new ArrayList<>();
-        mSpawnUtil = new SpawnUtil(mApple, mNumBlocksHigh);
+    // Reads the snapshot pause() left with one channel read, false if there wasn't a usable one
+    private boolean restoreSnapshot() {
+        File file = new File(getContext().getFilesDir(), SNAPSHOT_FILE);
+        if (!file.exists()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        try (FileInputStream in = new FileInputStream(file)) {
+            FileChannel channel = in.getChannel();
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // keep reading
+            }
+            buffer.flip();
+            GameSnapshot.read(mEngine, buffer);
+            Log.d("SnakeGame", "Restored snapshot in " + (System.nanoTime() - start) / 1000 + "us");
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            Log.e("SnakeGame", "Error restoring snapshot", e);
+            // Don't try that one again, and don't keep a half restored game
+            file.delete();
+            mEngine.newGame();
+            return false;
+        }
     }
 
-    private Bitmap loadScaledBitmap(Context context, int resId, int width, int height) {
-        // Loads a bitmap from resources and scales it to the specified width and height
-        Bitmap bitmap = BitmapFactory.decodeResource(context.getResources(), resId);
-        return Bitmap.createScaledBitmap(bitmap, width, height, false);
+    // Writes the game in progress with one channel write to a temporary file,
+    // then renames it over the old one so a kill half way can't leave a torn snapshot
+    private void saveSnapshot() {
+        File file = new File(getContext().getFilesDir(), SNAPSHOT_FILE);
+        if (mShowHome) {
+            // Nothing to come back to
+            file.delete();
+            return;
+        }
+        File temp = new File(getContext().getFilesDir(), SNAPSHOT_FILE + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.sizeOf(mEngine));
+        GameSnapshot.write(mEngine, buffer);
+        buffer.flip();
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            FileChannel channel = out.getChannel();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            Log.e("SnakeGame", "Error saving snapshot", e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e("SnakeGame", "Error replacing snapshot");
+            temp.delete();
+        }
     }
 
-    private void initializeSoundPool(Context context) {
-        // Sets up the SoundPool for playing sound effects with its audio attributes
-        AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                .setUsage(AudioAttributes.USAGE_MEDIA)
-                .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                .build();
+    private void loadAssets(final Context context) {
+        // The home screen only needs its background and the font, so those go first
+        mHomeBackgroundFuture = loadBitmap("home background", R.drawable.homescreenbackground,
+                BACKGROUND_WIDTH, BACKGROUND_HEIGHT);
+        mFontFuture = mAssets.load("font", new Callable<Typeface>() {
+            @Override
+            public Typeface call() {
+                return Typeface.createFromAsset(context.getAssets(), "fonts/minecraftfont.otf");
+            }
+        });
+
+        mGameBackgroundFuture = loadBitmap("game background", R.drawable.minecraftbackground,
+                BACKGROUND_WIDTH, BACKGROUND_HEIGHT);
+        mPauseButtonFuture = loadBitmap("pause button", R.drawable.pause_button,
+                pauseButtonWidth, pauseButtonHeight);
+        // Every cell-sized sprite goes into one atlas shared by the game objects
+        mAtlasFuture = mAssets.load("sprite atlas", new Callable<SpriteAtlas>() {
+            @Override
+            public SpriteAtlas call() {
+                return new SpriteAtlas(mBitmapCache, mBlockSize);
+            }
+        });
+    }
 
-        mSP = new SoundPool.Builder()
-                .setMaxStreams(5)
-                .setAudioAttributes(audioAttributes)
-                .build();
+    private Future<Bitmap> loadBitmap(String name, final int resId, final int width, final int height) {
+        return mAssets.load(name, new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() {
+                return mBitmapCache.get(resId, width, height);
+            }
+        });
+    }
 
-        // Loads sound files into the SoundPool
-        loadSounds(context);
+    // Picks up assets as the loader finishes them, runs on the game thread
+    private void pollAssets() {
+        if (mHud == null) {
+            if (!AssetLoader.isDone(mHomeBackgroundFuture, mFontFuture)) {
+                return;
+            }
+            Typeface typeface = mAssets.get(mFontFuture, "font");
+            if (typeface != null) {
+                mPaint.setTypeface(typeface);
+            }
+            // Text paints are built once from the font we just set
+            mHud = new Hud(getContext(), mPaint);
+            background.setHomeBitmap(mAssets.get(mHomeBackgroundFuture, "home background"));
+            mAssets.homeReady();
+        }
+        if (AssetLoader.isDone(mGameBackgroundFuture, mPauseButtonFuture, mAtlasFuture)) {
+            background.setGameBitmap(mAssets.get(mGameBackgroundFuture, "game background"));
+            pauseButtonBitmap = mAssets.get(mPauseButtonFuture, "pause button");
+            mAtlas = mAssets.get(mAtlasFuture, "sprite atlas");
+            // Initializes game entities - Snake and Apple
+            initializeGameObjects();
+            mAssets.finish();
+            mGameReady = true;
+        }
     }
 
-    private void loadSounds(Context context) {
-        try {
-            AssetManager assetManager = context.getAssets();
-            mEat_ID = mSP.load(assetManager.openFd("eating_sound.ogg"), 0);
-            mCrashID = mSP.load(assetManager.openFd("Minecraft_death.ogg"), 0);
-            mEdgeCollisionID = mSP.load(assetManager.openFd("Minecraft_death.ogg"), 0);
-        } catch (IOException e) {
-            Log.e("SnakeGame", "Error loading sound files", e);
+    private void initializeGameObjects() {
+        // Initialize the objects that draw the engine
+        GameState state = mEngine.getState();
+
+        PickupPool pickups = state.getPickups();
+        Pickup[] slots = new Pickup[pickups.getCapacity()];
+        mApples = new Apple[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = pickups.getSlot(i);
+            mApples[i] = new Apple(mAtlas, slots[i]);
         }
+        mSnake = new Snake(mAtlas, new Point(mNumBlocksWide, mNumBlocksHigh), state.getSnake());
+        mSnake.setGame(this);
+
+        mWall = new Wall(mAtlas, state.getWall());
+        // The demo always fits the screen, even in a large arena
+        mAttract = new AttractMode(mNumBlocksWide, mNumBlocksHigh, System.nanoTime(),
+                mEngine.getTickMillis(), mAtlas, mWall);
+        mRenderer = new LayeredRenderer(mBlockSize, mCamera, mSnake, state.getSnake(), state.getWall(), slots);
     }
 
     // Overloaded newGame method with custom initial score
     public void newGame(int initialScore) {
-        mSnake.reset(NUM_BLOCKS_WIDE, mNumBlocksHigh);
-        mApple.spawn();
-        mScore = initialScore;  // Sets the initial score
-        mNextFrameTime = System.currentTimeMillis();
+        mEngine.newGame(initialScore);
+        // A fresh recording for each game, as in newGame()
+        mEngine.startRecording();
+        mHighScores.startRun(System.currentTimeMillis());
+        mAccumulatorNanos = 0;
     }
 
     // Called to start a new game
     public void newGame() {
         background.setGameBackground();
-        // reset the snake
-        mSnake.reset(NUM_BLOCKS_WIDE, mNumBlocksHigh);
-
-        // Get the apple ready for dinner
-        mApple.spawn();
-
-        // Reset the mScore
-        mScore = 0;
-        //num of segments
-        mWall.initializeWall(new Point(NUM_BLOCKS_WIDE, mNumBlocksHigh), 5);
-
-        // Setup mNextFrameTime so an update can triggered
-        mNextFrameTime = System.currentTimeMillis();
+        // reset the snake, apple, score and walls
+        mEngine.newGame();
+        // A fresh recording from a snapshot of the new game, so the one saved
+        // on a death covers just that game however long the session runs
+        mEngine.startRecording();
+        mHighScores.startRun(System.currentTimeMillis());
+
+        // Start the next tick from a clean accumulator
+        mAccumulatorNanos = 0;
     }
 
     public void showHomeScreen() {
@@ -267,299 +473,356 @@ class SnakeGame extends SurfaceView implements Runnable {
         invalidate();
     }
 
-    // Handles the game loop
-    @Override
-    public void run() {
-        while (mPlaying) {
-            if (!mPaused) {
-                // Update 10 times a second
-                if (updateRequired()) {
-                    if(mSnake.isBoosted()) {
-                        update(2);
-                    }
-                    else if(mSnake.isSlowed()) {
-                        update(0);
-                    }
-                    else {
-                        update(1);
-                    }
-                }
-            }
-            draw();
-        }
+    // Changes the tick rate and render rate caps from any thread. The game
+    // thread applies it at the start of its next frame, switching vsync on or
+    // off waits for the next resume().
+    public void setLoopConfig(GameLoopConfig config) {
+        mPendingLoopConfig.set(config);
     }
 
-    // Check to see if it is time for an update
-    public boolean updateRequired() {
-        // Are we due to update the frame
-        if (mNextFrameTime <= System.currentTimeMillis()) {
-            // Tenth of a second has passed
-            // Setup when the next update will be triggered
-            mNextFrameTime = System.currentTimeMillis() + MILLIS_PER_SECOND / TARGET_FPS;
-            // Return true so that the update and draw
-            // methods are executed
-            return true;
-        }
-        return false;
+    public GameLoopConfig getLoopConfig() {
+        GameLoopConfig pending = mPendingLoopConfig.get();
+        return pending != null ? pending : mLoopConfig;
     }
 
-    // Overloaded update method with custom speed parameter
-    public void update(int speed) {
-        // Adjust the update logic based on the speed parameter
-        mSnake.move(speed);  // Assuming move can take speed as a parameter
-
-        //Update power-ups
-        updatePowerUps();
-
-        //Check if the snake ate the apple
-        checkAppleCollision();
-
-        //Check if the snake died
-        checkSnakeDeath();
+    // Game thread only, the engine and its replay recorder aren't safe to touch from anywhere else
+    private void applyLoopConfig() {
+        GameLoopConfig config = mPendingLoopConfig.getAndSet(null);
+        if (config != null) {
+            mLoopConfig = config;
+            mEngine.setTickMillis(MILLIS_PER_SECOND / config.getTicksPerSecond());
+        }
     }
 
-    //Update power-ups
-    private void updatePowerUps() {
-        if (mPowerUps != null) {
-            for (PowerUp powerUp : mPowerUps) {
-                powerUp.getType();
-                powerUp.applyEffect(mSnake);
-            }
+    // Handles the game loop
+    @Override
+    public void run() {
+        applyLoopConfig();
+        mLastLoopTime = System.nanoTime();
+        mLastRenderTime = 0;
+        if (mLoopConfig.isVsyncEnabled()) {
+            runVsyncLoop();
         } else {
-            Log.e("SnakeGame", "mPowerUps is null");
+            runSleepLoop();
         }
     }
 
-    //Did the head of the snake eat the apple?
-    private void checkAppleCollision() {
-        // Check if the head consumed a golden apple
-        if (mGoldenApple != null && mSnake.checkDinner(mGoldenApple.getLocation())) {
-            Log.d("SnakeGame", "Score multiplier = " + mGoldenApple.getScoreMultiplier());
-            appleEaten(mGoldenApple);
-            if (SpawnUtil.shouldSpawnPowerUp()) {
-                mSnake.applySpeedBoost(2, BOOST_DURATION);
-            } else if (SpawnUtil.shouldSpawnPowerDown()) {
-                mSnake.applySpeedDecrease(0, BOOST_DURATION);
-            }
-            spawnAppleOrPowerUp();
-        }
-        if (mPoisonApple != null && mSnake.checkDinner(mPoisonApple.getLocation())) {
-            Log.d("SnakeGame", "Score multiplier = " + mPoisonApple.getScoreMultiplier());
-            appleEaten(mPoisonApple);
-            if (SpawnUtil.shouldSpawnPowerUp()) {
-                mSnake.applySpeedBoost(2, BOOST_DURATION);
-            } else if (SpawnUtil.shouldSpawnPowerDown()) {
-                mSnake.applySpeedDecrease(0, BOOST_DURATION);
-            }
-            spawnAppleOrPowerUp();
-        }
-        if (mApple.needsRespawn()) {
-            Log.d("SnakeGame", "Score multiplier = " + mApple.getScoreMultiplier());
-            mApple.spawn();
+    // Lets Choreographer wake the thread once per display refresh
+    private void runVsyncLoop() {
+        Looper.prepare();
+        mLooper = Looper.myLooper();
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        // pause() may have run before the looper existed
+        if (mPlaying) {
+            Looper.loop();
         }
+        mLooper = null;
     }
 
-    private void spawnAppleOrPowerUp() {
-        if(SpawnUtil.shouldSpawnApple()) {
-            mSpawnUtil.spawnApple();
-        }
-        else if(SpawnUtil.shouldSpawnPowerUp()) {
-            mSpawnUtil.spawnPowerUp();
+    private void onVsync(long frameTimeNanos) {
+        if (!mPlaying) {
+            return;
         }
-        else {
-            mSpawnUtil.spawnPowerDown();
+        // Skip vsyncs that come sooner than the render cap allows
+        if (frameTimeNanos - mLastRenderTime >= mLoopConfig.getFrameNanos() - mLoopConfig.getFrameNanos() / 10) {
+            mLastRenderTime = frameTimeNanos;
+            stepFrame(frameTimeNanos);
         }
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
     }
 
-    private void appleEaten(Apple apple) {
-        int multiplier = apple.getScoreMultiplier();
-        mScore += multiplier;
-    }
-
-    private void checkSnakeDeath() {
-        // Check for collision with wall or edge
-        if (mSnake.detectDeath(mWall) || isEdgeCollision(mSnake.getLocation())) {
-            mSP.play(mEdgeCollisionID, 1, 1, 0, 0, 1);
-            mPaused = true;
-            mScore = 0;
-            newGame();
+    // Fallback that sleeps until the next frame deadline
+    private void runSleepLoop() {
+        long frameNanos = mLoopConfig.getFrameNanos();
+        long nextFrame = System.nanoTime();
+        while (mPlaying) {
+            stepFrame(System.nanoTime());
+
+            nextFrame += frameNanos;
+            long sleepNanos = nextFrame - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    Thread.sleep(sleepNanos / 1000000L, (int) (sleepNanos % 1000000L));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else {
+                // We fell behind, don't try to draw the missed frames
+                nextFrame = System.nanoTime();
+            }
         }
     }
 
-    // Check if the snake's head collides with the edge of the game area
-    private boolean isEdgeCollision(Point snakeHead) {
-        return snakeHead.x <= 0 || snakeHead.x >= NUM_BLOCKS_WIDE - 1 ||
-                snakeHead.y <= 0 || snakeHead.y >= mNumBlocksHigh - 1;
-    }
-
-    // Update all the game objects
-    public void update() {
-        // Move the snake
-        mSnake.move();
-        //checks for collision between the snake head and wall segments
-        if (mWall.checkCollision(mSnake.getLocation())) {
-            //pause the game if collision is detected.
-            mPaused = true;
-            checkScore();
+    // Runs as many fixed ticks as the elapsed time allows, then draws once
+    private void stepFrame(long now) {
+        mStats.beginFrame();
+        applyLoopConfig();
+        if (!mGameReady) {
+            pollAssets();
+        } else {
+            // Pauses and restarts apply straight away, turns wait for tick()
+            applyInputs(false);
         }
+        long elapsed = Math.min(now - mLastLoopTime, MAX_FRAME_NANOS);
+        mLastLoopTime = now;
 
-        // Did the head of the snake eat the apple?
-        if (mSnake.checkDinner(mApple.getLocation())) {
-            long currTime = System.currentTimeMillis();
-            long elapsedTime = currTime - lastSpawnTime;
-
-            if (elapsedTime >= COOLDOWN_DURATION) {
-                if (SpawnUtil.shouldSpawnPowerUp()) {
-                    mSpawnUtil.spawnPowerUp();
-                }
-                if (SpawnUtil.shouldSpawnPowerDown()) {
-                    mSpawnUtil.spawnPowerDown();
-                }
-                if (SpawnUtil.shouldSpawnApple()) {
-                    mSpawnUtil.spawnApple();
-                }
+        long tickNanos = mLoopConfig.getTickNanos();
+        if (!mPaused) {
+            mAccumulatorNanos += elapsed;
+            int ticks = 0;
+            // A death pauses the game from inside tick(), the game the engine
+            // started in its place waits for the player
+            while (!mPaused && mAccumulatorNanos >= tickNanos && ticks < mLoopConfig.getMaxCatchUpTicks()) {
+                long tickStart = mStats.start();
+                tick();
+                mStats.end(FrameStats.TICK, tickStart);
+                mAccumulatorNanos -= tickNanos;
+                ticks++;
+            }
+            if (mPaused) {
+                mAccumulatorNanos = 0;
+            } else if (mAccumulatorNanos >= tickNanos) {
+                // Drop whatever is left over rather than spiralling
+                mAccumulatorNanos %= tickNanos;
+            }
+        } else if (isAttractShowing()) {
+            // Nobody is watching closely enough to need catching up, one tick at most
+            mAttractNanos += elapsed;
+            if (mAttractNanos >= tickNanos) {
+                mAttractNanos %= tickNanos;
+                mAttract.tick();
             }
-            // Set the last spawn time to current time
-            lastSpawnTime = currTime;
+        }
 
-            // Add to  mScore
-            appleEaten(mApple);
+        // How far we are between the last tick and the next one
+        float alpha = mPaused ? 1f : (float) mAccumulatorNanos / tickNanos;
+        long drawStart = mStats.start();
+        draw(alpha);
+        mStats.end(FrameStats.FRAME, drawStart);
+        mStats.endFrame();
+    }
 
-            // Play a sound
-            mSP.play(mEat_ID, 1, 1, 0, 0, 1);
-        }
+    // One fixed simulation step. The engine does the work, then everything
+    // that reacts to it hears about it once through the event bus.
+    private void tick() {
+        applyInputs(true);
+        mEngine.tick();
+        mEngine.getEvents().dispatch();
+    }
 
-        // if the snake dies against the wall
-        if (mSnake.detectDeath(mWall)) {
-            //ends the game ready to restart
-            mSP.play(mCrashID, 1, 1, 0, 0, 1);
-            newGame();
-            mPaused = true;
-            checkScore();
+    // Scores and the end of a game, on the game thread as the bus dispatches
+    private final GameEvents.Listener mGameListener = new GameEvents.Listener() {
+        @Override
+        public void onGameEvent(int type, int a, int b, long timeMillis) {
+            if (type == GameEvents.SCORE_CHANGED) {
+                // Only touches memory, HighScores saves it later on DISK_WRITER
+                mHighScores.update(a);
+            } else if (type == GameEvents.DEATH) {
+                mHighScores.endRun();
+                saveReplay();
+                mPaused = true;
+                background.setGameBackground();
+            }
         }
+    };
+
+    // Writes the game up to now to a file ReplayPlayer can play back, off the
+    // game thread since it's only needed when someone reports a death. The
+    // recording is handed over as it is rather than copied here.
+    private void saveReplay() {
+        final ReplayRecorder.Replay replay = mEngine.getRecorder().capture();
+        final File file = new File(getContext().getFilesDir(), REPLAY_FILE);
+        DISK_WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    replay.writeTo(out);
+                } catch (IOException e) {
+                    Log.e("SnakeGame", "Error saving replay", e);
+                }
+            }
+        });
     }
 
     // Do all the drawing
     public void draw() {
+        draw(1f);
+    }
+
+    // Draws the game with the snake placed alpha of the way into the current tick
+    public void draw(float alpha) {
         try {
             // Check if the surface is valid before drawing
-            if (mSurfaceHolder.getSurface().isValid()) {
-                // Lock the canvas for drawing
-                mCanvas = mSurfaceHolder.lockCanvas();
-                if (mCanvas != null) {
-                    if (mShowHome) {
-                        background.setCurrentBackground();
-                        drawHomeScreen(mCanvas, mPaint);
-                    } else if (mSnake.isGameOver()) {
-                        drawGameOver(mCanvas, mPaint);
-                    } else {
-                        // Draw the game's background
-                        drawBackground();
-                        // Draw the apple and snake
-                        mApple.draw(mCanvas, mPaint);
-                        //draws wall
-                        mWall.draw(mCanvas, mPaint);
-                        mSnake.draw(mCanvas, mPaint);
-
-                        // If the game is paused, draw the paused text overlay
-                        if (mPaused) {
-                            drawFinal(mCanvas, mPaint);
-                            drawPausedText();
-                            drawGameOver(mCanvas, mPaint);
-                        } else {
-                            drawScore();
-                            checkScore();
-                        }
-                        if (highscore == 0) {
-                            //init highscore
-                            highscore = Integer.parseInt(getHighscoreValue());
-                        }
-                        // Draw the pause button and the name text on the screen
-                        drawPauseButton();
-                        drawNames("Kiranjot, Imren, Marilyn, Savannah <3");
-                    }
-                    mSurfaceHolder.unlockCanvasAndPost(mCanvas);
+            if (!mSurfaceHolder.getSurface().isValid()) {
+                return;
+            }
+            if (!mGameReady) {
+                // Only the home screen can show until everything has loaded
+                if (mHud != null && !mHomeDrawn) {
+                    mHomeDrawn = drawFullFrame(LayeredRenderer.MODE_HOME, alpha);
                 }
+                return;
             }
+            int mode = mShowHome ? LayeredRenderer.MODE_HOME
+                    : mPaused ? LayeredRenderer.MODE_PAUSED : LayeredRenderer.MODE_PLAYING;
+            if (mode != LayeredRenderer.MODE_HOME && mRenderer.isStaticLayerStale(getWidth(), getHeight())) {
+                drawFullFrame(mode, alpha);
+            } else if (mRenderer.needsFullFrame(mode)) {
+                drawFullFrame(mode, alpha);
+            } else if (mode == LayeredRenderer.MODE_PLAYING) {
+                drawDirtyFrame(alpha);
+            } else if (mode == LayeredRenderer.MODE_HOME && isAttractShowing() && mAttract.needsDraw()) {
+                drawFullFrame(mode, alpha);
+            }
+            // Otherwise the home and paused screens don't change until the mode does
         } catch (Exception e) {
             Log.e("SnakeGame", "Exception in draw method", e);
         }
-
-        //check if an apple was eaten
-                    if (mSnake.checkDinner(mApple.getLocation())) {
-                        if (SpawnUtil.shouldSpawnPowerUp()) {
-                            mSpawnUtil.spawnPowerUp();
-                        } else if (SpawnUtil.shouldSpawnPowerDown()) {
-                            mSpawnUtil.spawnPowerDown();
-                        } else {
-                            //Spawn another apple
-                            mSpawnUtil.spawnApple();
-                        }
-                        //increase the score
-                        appleEaten(mApple);
-                        //play a sound
-                        mSP.play(mEat_ID, 1, 1, 0, 0, 1);
-                    }
-                }
-    // Draws the background image
-    private void drawBackground() {
-        background.draw(mCanvas);
     }
 
-    // Renders the current score on the screen
-    public void drawScore() {
-        mPaint.setColor(Color.argb(255, 255, 255, 255));
-        mPaint.setTextSize(80);
-        mCanvas.drawText("" + mScore, 20, 120, mPaint);
-        mCanvas.drawText("Highscore: " + highscore, 20, 250, mPaint);
+    // Redraws the whole screen, returns false if the surface wasn't available
+    private boolean drawFullFrame(int mode, float alpha) {
+        // Lock the canvas for drawing
+        mCanvas = mSurfaceHolder.lockCanvas();
+        if (mCanvas == null) {
+            return false;
+        }
+        int shownHighscore = mHighScores.getBest();
+        if (mShowHome) {
+            drawHomeScreen(mCanvas, mPaint);
+        } else if (mSnake.isGameOver()) {
+            drawGameOver(mCanvas, mPaint);
+        } else {
+            // Background, walls, pause button and names all come from the static layer
+            long start = mStats.start();
+            if (mRenderer.isStaticLayerStale(mCanvas.getWidth(), mCanvas.getHeight())) {
+                buildStaticLayer(mCanvas.getWidth(), mCanvas.getHeight());
+            }
+            mRenderer.drawStaticLayer(mCanvas, null);
+            mHudRect.set(0, 0, mCanvas.getWidth() / 2, HUD_HEIGHT);
+            mStats.end(FrameStats.STATIC_LAYER, start);
+
+            // Draw the apple and snake
+            start = mStats.start();
+            drawBoard(alpha);
+            mStats.end(FrameStats.SPRITES, start);
+
+            // If the game is paused, draw the paused text overlay
+            start = mStats.start();
+            if (mPaused) {
+                drawFinal(mCanvas, mPaint);
+                mHud.drawPausedText(mCanvas);
+                drawGameOver(mCanvas, mPaint);
+            } else {
+                drawScore();
+            }
+            mStats.end(FrameStats.HUD, start);
+            mStats.refreshOverlay(System.nanoTime());
+            mStats.drawOverlay(mCanvas);
+        }
+        long postStart = mStats.start();
+        mSurfaceHolder.unlockCanvasAndPost(mCanvas);
+        mStats.end(FrameStats.POST, postStart);
+        if (mRenderer != null) {
+            mRenderer.frameDrawn(mode, alpha, mEngine.getState().getScore(), shownHighscore);
+        }
+        return true;
     }
 
-    //Draws player's final score
-    public void drawFinal(Canvas canvas, Paint paint) {
-        Paint finalPaint = new Paint(paint);
-        String score = "Final Score:" + mScore;
-        finalPaint.setColor(Color.WHITE);
-        finalPaint.setTextSize(100);
-        //adjusting the title of Game Over to be positioned above tap to play
-        finalPaint.setTextAlign(Paint.Align.CENTER);
-        float x = (float) canvas.getWidth() / 2;
-        float y = (float) canvas.getHeight() / 2 - finalPaint.descent() - 180;
-        canvas.drawText(score, x, y, finalPaint);
+    // Redraws only the cells that changed since the last frame
+    private void drawDirtyFrame(float alpha) {
+        int score = mEngine.getState().getScore();
+        int shownHighscore = mHighScores.getBest();
+        boolean changed = mRenderer.computeDirty(alpha, score, shownHighscore, mHudRect);
+        // The overlay's numbers only change every so often
+        if (mStats.refreshOverlay(System.nanoTime())) {
+            mRenderer.getDirty().union(mStats.getOverlayRect());
+            changed = true;
+        }
+        if (!changed) {
+            return;
+        }
+        // lockCanvas may grow the region, everything inside it gets redrawn
+        Rect dirty = mRenderer.getDirty();
+        mCanvas = mSurfaceHolder.lockCanvas(dirty);
+        if (mCanvas == null) {
+            return;
+        }
+        long start = mStats.start();
+        mRenderer.drawStaticLayer(mCanvas, dirty);
+        mStats.end(FrameStats.STATIC_LAYER, start);
+        start = mStats.start();
+        drawApples(null);
+        mSnake.draw(mCanvas, mPaint, alpha, dirty);
+        mStats.end(FrameStats.SPRITES, start);
+        start = mStats.start();
+        if (Rect.intersects(dirty, mHudRect)) {
+            drawScore();
+        }
+        mStats.end(FrameStats.HUD, start);
+        if (mStats.isOverlayShown() && Rect.intersects(dirty, mStats.getOverlayRect())) {
+            mStats.drawOverlay(mCanvas);
+        }
+        start = mStats.start();
+        mSurfaceHolder.unlockCanvasAndPost(mCanvas);
+        mStats.end(FrameStats.POST, start);
+        mRenderer.frameDrawn(LayeredRenderer.MODE_PLAYING, alpha, score, shownHighscore);
     }
 
-    // Displays a "Paused" message overlay when the game is paused
-    private void drawPausedText() {
-        Paint outlinePaint = new Paint(mPaint);
-        outlinePaint.setColor(Color.BLACK); // Outline color
-        outlinePaint.setStyle(Paint.Style.STROKE); // Outline style
-        outlinePaint.setStrokeWidth(8); // Outline width
-
-        String tapToPlayText = getResources().getString(R.string.tap_to_play);
+    // Draws the apples and snake, and on a board bigger than the screen the
+    // walls too, through the camera so only the cells in view are drawn
+    private void drawBoard(float alpha) {
+        if (!mCamera.isScrolling()) {
+            drawApples(null);
+            mSnake.draw(mCanvas, mPaint, alpha, null);
+            return;
+        }
+        mSnake.segmentRect(0, alpha, mHeadRect);
+        mCamera.follow(mHeadRect);
+        mCanvas.save();
+        mCanvas.translate(-mCamera.getLeft(), -mCamera.getTop());
+        mWall.drawCells(mCanvas, mPaint, mEngine.getState().getGrid(), mCamera.getVisibleCells());
+        drawApples(mCamera.getVisibleCells());
+        mSnake.drawCells(mCanvas, mPaint, alpha, mEngine.getState().getGrid(), mCamera.getVisibleCells());
+        mCanvas.restore();
+    }
 
-        mPaint.setTextSize(250);
-        outlinePaint.setTextSize(250);
+    // Only the ones inside cells, or all of them when cells is null
+    private void drawApples(Rect cells) {
+        for (Apple apple : mApples) {
+            apple.draw(mCanvas, mPaint, cells);
+        }
+    }
 
-        // Draws the outline first
-        mCanvas.drawText(tapToPlayText, 200, 700, outlinePaint);
+    // Composites everything that only changes with the walls into one bitmap
+    private void buildStaticLayer(int width, int height) {
+        Canvas layer = mRenderer.beginStaticLayer(width, height);
+        background.drawGame(layer);
+        // On a scrolling board the walls move with it, so drawBoard() does them
+        if (!mCamera.isScrolling()) {
+            mWall.draw(layer, mPaint);
+        }
+        // Draw the pause button and the name text on the screen
+        drawPauseButton(layer);
+        mHud.drawNames(layer, pauseButtonWidth, pauseButtonMargin);
+        mRenderer.endStaticLayer();
+    }
 
-        // Draws the main text, exactly over the outline
-        mCanvas.drawText(tapToPlayText, 200, 700, mPaint);
+    // Renders the current score on the screen
+    public void drawScore() {
+        mHud.drawScore(mCanvas, mEngine.getState().getScore(), mHighScores.getBest());
     }
 
-    // Draws the name text on the screen
-    private void drawNames(String name) {
-        mPaint.setTextSize(50);
-        float nameWidth = mPaint.measureText(name);
-        int xStart = mCanvas.getWidth() - pauseButtonWidth - pauseButtonMargin - (int) nameWidth - 20;
-        int yStart = pauseButtonMargin + 50;
-        mCanvas.drawText(name, xStart, yStart, mPaint);
+    //Draws player's final score
+    public void drawFinal(Canvas canvas, Paint paint) {
+        mHud.drawFinal(canvas, mEngine.getState().getScore());
     }
 
     // Renders the pause button in the top-right corner
-    private void drawPauseButton() {
-        int xStart = mCanvas.getWidth() - pauseButtonWidth - pauseButtonMargin;
+    private void drawPauseButton(Canvas canvas) {
+        int xStart = canvas.getWidth() - pauseButtonWidth - pauseButtonMargin;
         int yStart = pauseButtonMargin;
-        mCanvas.drawBitmap(pauseButtonBitmap, xStart, yStart, null);
+        canvas.drawBitmap(pauseButtonBitmap, xStart, yStart, null);
     }
 
     // Overloaded setFont method with font size
@@ -575,13 +838,45 @@ class SnakeGame extends SurfaceView implements Runnable {
         mPaint.setTypeface(typeface);
     }
 
+    // Applies queued taps in the order they happened. Turns wait for a tick and
+    // each tick takes at most one, so two quick taps turn on two moves in a row
+    // instead of both landing before the snake has moved
+    private void applyInputs(boolean turnAllowed) {
+        for (int command = mInput.peek(); command != InputQueue.EMPTY; command = mInput.peek()) {
+            if (mShowHome) {
+                // Any tap on the home screen starts a new game
+                mShowHome = false;
+                mPaused = false;
+                newGame();
+            } else if (command == INPUT_TAP_PAUSE_BUTTON) {
+                // Toggle pause if the pause button area is tapped
+                togglePause();
+            } else if (mPaused) {
+                // Tapping while paused starts over, without turning the snake
+                mPaused = false;
+                newGame();
+            } else if (turnAllowed) {
+                if (command == INPUT_TAP_RIGHT) {
+                    mEngine.turnClockwise();
+                } else {
+                    mEngine.turnCounterClockwise();
+                }
+                turnAllowed = false;
+            } else {
+                // Leave it for the next tick
+                return;
+            }
+            mInput.remove();
+        }
+    }
+
     private void togglePause() {
         // If the game is paused, resume it, otherwise pause it
         mPaused = !mPaused;
 
-        // If resuming, reset the next frame time to avoid instant update
+        // If resuming, reset the accumulator to avoid instant update
         if (!mPaused) {
-            mNextFrameTime = System.currentTimeMillis();
+            mAccumulatorNanos = 0;
         }
     }
 
@@ -603,27 +898,21 @@ class SnakeGame extends SurfaceView implements Runnable {
 
         switch (motionEvent.getAction() & MotionEvent.ACTION_MASK) {
             case MotionEvent.ACTION_UP:
-                if (mShowHome) {
-                    mShowHome = false;
-                    mPaused = false;
-                    newGame();  // Start a new game
+                if (!mGameReady) {
+                    // Still loading, there's no game to start yet
                     return true;
                 }
+                // Only say where the tap was, the game thread decides what it means
+                int command;
                 if (motionEvent.getX() >= pauseButtonXStart && motionEvent.getY() >= pauseButtonYStart && motionEvent.getY() <= pauseButtonYEnd) {
-                    // Toggle pause if the pause button area is tapped
-                    togglePause();
-                    return true;
-                }
-                if (mPaused) {
-                    mPaused = false;
-                    newGame();
-
-                    // Don't want to process snake direction for this tap
-                    return true;
+                    command = INPUT_TAP_PAUSE_BUTTON;
+                } else if (mSnake.isClockwiseTap(motionEvent)) {
+                    command = INPUT_TAP_RIGHT;
+                } else {
+                    command = INPUT_TAP_LEFT;
                 }
-
-                if (!mPaused) {
-                    mSnake.switchHeading(motionEvent);
+                if (!mInput.offer(command, motionEvent.getEventTime())) {
+                    Log.w("SnakeGame", "Input queue full, tap dropped");
                 }
                 break;
 
@@ -636,141 +925,112 @@ class SnakeGame extends SurfaceView implements Runnable {
     // Stop the thread
     public void pause() {
         mPlaying = false;
+        Looper looper = mLooper;
+        if (looper != null) {
+            looper.quitSafely();
+        }
         try {
             mThread.join();
         } catch (InterruptedException e) {
             // Error
         }
+        // The game thread has stopped, so the engine can be read from here
+        saveSnapshot();
+        if (mStats.isEnabled()) {
+            Log.i("SnakeGame", "Frame stats:\n" + mStats.dump());
+        }
+    }
+
+    // Times ticks and each part of drawing, see FrameStats
+    public void setFrameStatsEnabled(boolean enabled) {
+        mStats.setEnabled(enabled);
+    }
+
+    // Shows the timings on screen, which turns them on if they weren't
+    public void setFrameStatsOverlayShown(boolean shown) {
+        mStats.setOverlayShown(shown);
+        // A full frame puts it up or takes it away
+        if (mRenderer != null) {
+            mRenderer.invalidate();
+        }
+    }
+
+    // p50, p95, p99 and max of everything timed so far, in microseconds
+    public String dumpFrameStats() {
+        return mStats.dump();
+    }
+
+    public void resetFrameStats() {
+        mStats.reset();
     }
 
     // Start the thread
     public void resume() {
         mPlaying = true;
+        // The surface may have been recreated while we were away
+        mHomeDrawn = false;
+        if (mRenderer != null) {
+            mRenderer.invalidate();
+        }
         mThread = new Thread(this);
         mThread.start();
     }
 
     public String getHighscoreValue() {
-        //read file to read name
-        FileReader readFile = null;
-        BufferedReader reader = null;
-        try {
-            readFile = new FileReader("highscore.dat");
-            reader = new BufferedReader(readFile);
-            return reader.readLine();
-        } catch (IOException e) {
-            return "0";
-        } finally {
-            try {
-                if (reader != null) {
-                    reader.close();
-                }
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
-    private void setupBackgroundMusic() {
-        try {
-            AssetManager assetManager = getContext().getAssets();
-            AssetFileDescriptor descriptor = assetManager.openFd("Minecraft_Music.ogg");
-            mMediaPlayer = new MediaPlayer();
-            mMediaPlayer.setDataSource(descriptor.getFileDescriptor(), descriptor.getStartOffset(), descriptor.getLength());
-            descriptor.close();
-
-            mMediaPlayer.setLooping(true); // Set looping
-            mMediaPlayer.setVolume(1.0f, 1.0f); // Set volume
-            mMediaPlayer.prepare(); // Prepare the MediaPlayer asynchronously
-            mMediaPlayer.start(); // Start playing
-        } catch (IOException e) {
-            Log.e("SnakeGame", "Error setting up background music", e);
-        }
+        return String.valueOf(mHighScores.getBest());
     }
 
-
     private void initGame() {
-        loadHighScore();
+        mHighScores = new HighScores(getContext().getFilesDir(), DISK_WRITER);
         mShowHome = true;
         mPaused = true;
-        setupBackgroundMusic();
-
     }
 
-    public void pauseMusic() {
-        if (mMediaPlayer != null && mMediaPlayer.isPlaying()) {
-            mMediaPlayer.pause();
-        }
+    // Pauses the music and any sound still playing
+    public void pauseAudio() {
+        mAudio.pause();
     }
 
-    public void resumeMusic() {
-        if (mMediaPlayer != null && !mMediaPlayer.isPlaying()) {
-            mMediaPlayer.start();
-        }
+    public void resumeAudio() {
+        mAudio.resume();
     }
 
-    public void stopMusic() {
-        if (mMediaPlayer != null) {
-            mMediaPlayer.stop();
-            mMediaPlayer.release();
-            mMediaPlayer = null;
-        }
+    // Lets go of the sound players, the game can't make sound after this
+    public void releaseAudio() {
+        mAudio.release();
     }
 
+    // Only touches memory, HighScores saves it later on DISK_WRITER
     public void checkScore() {
-        if (mScore > highscore) {
-            highscore = mScore;
-            saveHighScore();
-        }
-    }
-
-    private void loadHighScore() {
-        File scoreFile = new File(getContext().getFilesDir(), "highscore.dat");
-        if (!scoreFile.exists()) {
-            highscore = 0;
-            return;
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(scoreFile))) {
-            highscore = Integer.parseInt(reader.readLine());
-        } catch (IOException e) {
-            Log.e("SnakeGame", "Error reading high score file", e);
-            highscore = 0;
-        }
-    }
-
-    // Saves high score to a file
-    private void saveHighScore() {
-        File scoreFile = new File(getContext().getFilesDir(), "highscore.dat");
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(scoreFile, false))) {
-            writer.write(String.valueOf(highscore));
-        } catch (IOException e) {
-            Log.e("SnakeGame", "Error saving high score", e);
-        }
+        mHighScores.update(mEngine.getState().getScore());
     }
 
     // Here prints the game over screen after the snake has died
     public void drawGameOver(Canvas canvas, Paint paint) {
-        Paint gameOver = new Paint(paint);
-        gameOver.setColor(Color.RED);
-        gameOver.setTextSize(100);
-        //adjusting the title of Game Over to be positioned above tap to play
-        gameOver.setTextAlign(Paint.Align.CENTER);
-        float x = (float) canvas.getWidth() / 2;
-        float y = (float) canvas.getHeight() / 2 - gameOver.descent() - 50;
-        canvas.drawText("Game Over", x , y, gameOver );
+        mHud.drawGameOver(canvas);
     }
 
     //Draws our homescreen
     private void drawHomeScreen(Canvas canvas, Paint paint){
-       background.draw(canvas);
-
-        paint.setColor(Color.WHITE);
-        paint.setTextSize(100);
-        int x = canvas.getWidth() / 2;
-        int y = canvas.getHeight() / 2;
-        canvas.drawText("CSC 133 Minecraft Java Edition", x-900, y, paint);
-        canvas.drawText("Tap to Start our Game!", x-600, y+100, paint);    }
+       background.drawHome(canvas);
+       if (isAttractShowing()) {
+           mAttract.draw(canvas, paint);
+       }
+       mHud.drawHomeText(canvas);
+    }
+
+    // Is the autopilot's demo playing behind the home screen?
+    private boolean isAttractShowing() {
+        return mShowHome && mAttract != null && mAttractEnabled;
+    }
+
+    // Turns the home screen's demo game on or off, it's on by default
+    public void setAttractModeEnabled(boolean enabled) {
+        mAttractEnabled = enabled;
+        if (mRenderer != null) {
+            mRenderer.invalidate();
+        }
+    }
 }
 
 
@@ -0,0 +1,106 @@
+package com.gamecodeschool.snakeysnake;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+// Every cell-sized sprite packed into one bitmap, so drawing the board
+// only ever uses one texture. Sprites are picked by the constants below.
+class SpriteAtlas {
+    static final int APPLE = 0;
+    static final int GOLDEN_APPLE = 1;
+    static final int POISON_APPLE = 2;
+    static final int WALL = 3;
+    static final int SNAKE_BODY = 4;
+    static final int SNAKE_HEAD_RIGHT = 5;
+    static final int SNAKE_HEAD_LEFT = 6;
+    static final int SNAKE_HEAD_UP = 7;
+    static final int SNAKE_HEAD_DOWN = 8;
+    private static final int SPRITE_COUNT = 9;
+    // Sprites per row of the atlas
+    private static final int COLUMNS = 4;
+
+    private final int mSize;
+    private final Bitmap mAtlas;
+    // Where each sprite sits in mAtlas
+    private final Rect[] mSources = new Rect[SPRITE_COUNT];
+    // Reused by draw(x, y) so frames don't allocate
+    private final Rect mDst = new Rect();
+
+    // Builds the atlas for sprites of size x size pixels
+    SpriteAtlas(BitmapCache cache, int size) {
+        this.mSize = size;
+        int rows = (SPRITE_COUNT + COLUMNS - 1) / COLUMNS;
+        mAtlas = Bitmap.createBitmap(COLUMNS * size, rows * size, Bitmap.Config.ARGB_8888);
+        for (int i = 0; i < SPRITE_COUNT; i++) {
+            int x = (i % COLUMNS) * size;
+            int y = (i / COLUMNS) * size;
+            mSources[i] = new Rect(x, y, x + size, y + size);
+        }
+
+        Canvas canvas = new Canvas(mAtlas);
+        put(canvas, APPLE, cache.get(R.drawable.apple, size, size));
+        put(canvas, GOLDEN_APPLE, cache.get(R.drawable.golden_apple, size, size));
+        put(canvas, POISON_APPLE, cache.get(R.drawable.poison_apple, size, size));
+        put(canvas, WALL, cache.get(R.drawable.wall, size, size));
+        put(canvas, SNAKE_BODY, cache.get(R.drawable.body, size, size));
+
+        // One decode of the head, turned to face each way
+        Bitmap head = cache.get(R.drawable.head, size, size);
+        put(canvas, SNAKE_HEAD_RIGHT, head);
+
+        // A matrix for scaling
+        Matrix matrix = new Matrix();
+        matrix.preScale(-1, 1);
+        putTransformed(canvas, SNAKE_HEAD_LEFT, head, matrix);
+
+        // A matrix for rotating
+        matrix.preRotate(-90);
+        putTransformed(canvas, SNAKE_HEAD_UP, head, matrix);
+
+        // Matrix operations are cumulative
+        // so rotate by 180 to face down
+        matrix.preRotate(180);
+        putTransformed(canvas, SNAKE_HEAD_DOWN, head, matrix);
+    }
+
+    int getSize() {
+        return mSize;
+    }
+
+    Bitmap getBitmap() {
+        return mAtlas;
+    }
+
+    // The part of the atlas holding this sprite
+    Rect getSource(int sprite) {
+        return mSources[sprite];
+    }
+
+    // Draws the sprite with its top left corner at x, y
+    void draw(Canvas canvas, int sprite, int x, int y, Paint paint) {
+        mDst.set(x, y, x + mSize, y + mSize);
+        canvas.drawBitmap(mAtlas, mSources[sprite], mDst, paint);
+    }
+
+    // Draws the sprite into dst
+    void draw(Canvas canvas, int sprite, Rect dst, Paint paint) {
+        canvas.drawBitmap(mAtlas, mSources[sprite], dst, paint);
+    }
+
+    private void put(Canvas canvas, int sprite, Bitmap bitmap) {
+        Rect source = mSources[sprite];
+        canvas.drawBitmap(bitmap, source.left, source.top, null);
+    }
+
+    // Copies a transformed version of bitmap in, only needed while building
+    private void putTransformed(Canvas canvas, int sprite, Bitmap bitmap, Matrix matrix) {
+        Bitmap transformed = Bitmap.createBitmap(bitmap, 0, 0, mSize, mSize, matrix, true);
+        put(canvas, sprite, transformed);
+        if (transformed != bitmap) {
+            transformed.recycle();
+        }
+    }
+}
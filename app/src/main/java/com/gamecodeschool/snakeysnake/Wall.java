@@ -1,77 +1,56 @@
 package com.gamecodeschool.snakeysnake;
 
-import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
 import android.graphics.Paint;
 import android.graphics.Point;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import android.graphics.Rect;
 
-import android.media.MediaPlayer;
-import android.content.res.AssetFileDescriptor;
-import java.io.IOException;
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+import com.gamecodeschool.snakeysnake.engine.WallLayout;
 
+// Draws the engine's wall segments
 class Wall extends MainObject {
 
     //holds the location of the wall segments
-    private List<Point> wallSegments = new ArrayList<>();
+    private final WallLayout mLayout;
 
     //size of each wall segment
     private int segmentSize;
 
-    private MediaPlayer mediaPlayer;
-
-    public Wall(Context context, Point gridDimensions, int segmentSize, int numberOfSegments) {
-        this.segmentSize = segmentSize;
-        initializeWall(gridDimensions, numberOfSegments);
-        //calls the inisitialze wall method to populate the wallsegments randomly
-        bitmap = BitmapFactory.decodeResource(context.getResources(), R.drawable.wall);
-        //loads wall.png
-        bitmap = Bitmap.createScaledBitmap(bitmap, segmentSize, segmentSize, false);
-        // Initialize MediaPlayer with a sound from the assets folder
-        mediaPlayer = new MediaPlayer();
-        try {
-            AssetFileDescriptor descriptor = context.getAssets().openFd("creeper_explosion.ogg");
-            mediaPlayer.setDataSource(descriptor.getFileDescriptor(), descriptor.getStartOffset(), descriptor.getLength());
-            descriptor.close();
-            mediaPlayer.prepare();
-        } catch (IOException e) {
-            e.printStackTrace();  // Handle exceptions appropriately
-        }
+    //holds wall.png along with the other sprites
+    private final SpriteAtlas mAtlas;
+
+    public Wall(SpriteAtlas atlas, WallLayout layout) {
+        this.segmentSize = atlas.getSize();
+        this.mLayout = layout;
+        this.mAtlas = atlas;
+    }
+
+    @Override
+    public void draw(Canvas canvas, Paint paint) {
+        draw(canvas, paint, mLayout);
     }
 
-    protected void initializeWall(Point gridDimensions, int numberOfSegments) {
-        //clears the old wallsegmnets from the list from pervious game
-        wallSegments.clear();
-        Random random = new Random();
-        //random x and y coordinates withing the griddementsion
-        for (int i = 0; i < numberOfSegments; i++) {
-            int x = random.nextInt(gridDimensions.x);
-            int y = random.nextInt(gridDimensions.y);
-            //represents the wallsegments position
-            wallSegments.add(new Point(x, y));
+    // Draws another engine's walls with the same sprite, for AttractMode
+    void draw(Canvas canvas, Paint paint, WallLayout layout) {
+        for (int i = 0; i < layout.getCount(); i++) {
+            int segment = layout.segmentAt(i);
+            mAtlas.draw(canvas, SpriteAtlas.WALL, SnakeBody.cellX(segment) * segmentSize, SnakeBody.cellY(segment) * segmentSize, paint);
         }
     }
-    //checks if snake collides with any wallsegments
-    public boolean checkCollision(Point snakeHead) {
-        for (Point segment : wallSegments) {
-            if (segment.equals(snakeHead)) {
-                if (!mediaPlayer.isPlaying()) {
-                    mediaPlayer.start();  // Play sound on collision
+
+    // Draws the walls in a block of cells straight from the grid, along with
+    // the board's edge so the end of a big arena can be seen. Used when the
+    // board scrolls, so the cost goes with what's on screen, not the wall count.
+    void drawCells(Canvas canvas, Paint paint, OccupancyGrid grid, Rect cells) {
+        for (int y = cells.top; y < cells.bottom; y++) {
+            for (int x = cells.left; x < cells.right; x++) {
+                if (grid.has(x, y, OccupancyGrid.WALL | OccupancyGrid.EDGE)) {
+                    mAtlas.draw(canvas, SpriteAtlas.WALL, x * segmentSize, y * segmentSize, paint);
                 }
-                return true;
             }
         }
-        return false;
-    }
-    @Override
-    public void draw(Canvas canvas, Paint paint) {
-        for (Point segment : wallSegments) {
-            canvas.drawBitmap(bitmap, segment.x * segmentSize, segment.y * segmentSize, paint);
-        }
     }
 
     @Override
@@ -0,0 +1,80 @@
+import groovy.json.JsonSlurper
+import java.util.Properties
+
+plugins {
+    id("java")
+    id("me.champeau.jmh")
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    jmh(project(":engine"))
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    // ns per op comes from AverageTime, bytes per op from the gc profiler
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("results/jmh/results.json"))
+}
+
+// Fails the build when a benchmark goes over its budget in budgets.properties,
+// has no time budget at all, or is missing a metric it has a budget for
+val checkBenchmarkBudgets by tasks.registering {
+    dependsOn("jmh")
+    doLast {
+        val budgets = Properties()
+        file("budgets.properties").inputStream().use { budgets.load(it) }
+        val resultsFile = layout.buildDirectory.file("results/jmh/results.json").get().asFile
+
+        @Suppress("UNCHECKED_CAST")
+        val results = JsonSlurper().parse(resultsFile) as List<Map<String, Any?>>
+        val failures = mutableListOf<String>()
+        for (result in results) {
+            // com.gamecodeschool.snakeysnake.benchmark.SnakeBenchmark.move -> SnakeBenchmark.move
+            val name = (result["benchmark"] as String).split('.').takeLast(2).joinToString(".")
+            val params = result["params"]?.toString() ?: ""
+
+            @Suppress("UNCHECKED_CAST")
+            val primary = result["primaryMetric"] as Map<String, Any?>
+            val unit = primary["scoreUnit"] as String?
+            // Budgets are in ns whatever unit the benchmark reports in
+            val nanosPerUnit = when (unit) {
+                "ns/op" -> 1.0
+                "us/op" -> 1e3
+                "ms/op" -> 1e6
+                "s/op" -> 1e9
+                else -> null
+            }
+            val timeBudget = budgets.getProperty("$name.ns")?.toDouble()
+            if (timeBudget == null) {
+                failures += "$name has no $name.ns budget"
+            } else if (nanosPerUnit == null) {
+                failures += "$name reported in $unit, which can't be checked against a ns budget"
+            } else {
+                val nanos = (primary["score"] as Number).toDouble() * nanosPerUnit
+                if (nanos > timeBudget) failures += "$name $params took %.1f ns/op, budget %.1f".format(nanos, timeBudget)
+            }
+
+            @Suppress("UNCHECKED_CAST")
+            val secondary = result["secondaryMetrics"] as Map<String, Map<String, Any?>>? ?: emptyMap()
+            val alloc = secondary["gc.alloc.rate.norm"] ?: secondary["·gc.alloc.rate.norm"]
+            val bytes = (alloc?.get("score") as Number?)?.toDouble()
+            budgets.getProperty("$name.bytes")?.toDouble()?.let { budget ->
+                if (bytes == null) {
+                    failures += "$name $params has a bytes budget but no gc.alloc.rate.norm result"
+                } else if (bytes > budget) {
+                    failures += "$name $params allocated %.1f B/op, budget %.1f".format(bytes, budget)
+                }
+            }
+        }
+        if (failures.isNotEmpty()) {
+            throw GradleException("Benchmark budget check failed:\n" + failures.joinToString("\n"))
+        }
+    }
+}
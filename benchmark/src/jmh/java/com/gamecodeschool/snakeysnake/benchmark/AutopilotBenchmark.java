@@ -0,0 +1,47 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.Autopilot;
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of the autopilot deciding a move and the tick that follows, which is
+// what a headless soak test pays per tick. Games die and restart as they go.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutopilotBenchmark {
+    @Param({"40", "200"})
+    int boardSize;
+
+    private GameEngine mEngine;
+    private Autopilot mAutopilot;
+
+    @Setup
+    public void setUp() {
+        mEngine = new GameEngine(boardSize, boardSize / 2, 42);
+        mEngine.newGame();
+        mAutopilot = new Autopilot(mEngine);
+    }
+
+    @Benchmark
+    public int steerAndTick() {
+        mAutopilot.steer();
+        return mEngine.tick();
+    }
+}
@@ -0,0 +1,78 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+import com.gamecodeschool.snakeysnake.engine.WallLayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of the wall and death lookups at random cells, which should not
+// depend on the snake's length or how many walls there are
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private static final int PROBES = 1024;
+
+    @Param({"128", "512"})
+    int boardSize;
+
+    @Param({"1", "1000", "10000"})
+    int snakeLength;
+
+    // Fraction of the board covered in wall segments
+    @Param({"0.0", "0.01", "0.1"})
+    double wallDensity;
+
+    private OccupancyGrid mGrid;
+    private SnakeBody mSnake;
+    private WallLayout mWall;
+    // Packed cells to look up, cycled through one per op
+    private final int[] mProbes = new int[PROBES];
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        mGrid = new OccupancyGrid(boardSize, boardSize);
+        mSnake = new SnakeBody(mGrid);
+        mSnake.reset(boardSize, boardSize);
+        new HamiltonianCycle(boardSize, boardSize).grow(mSnake, snakeLength);
+
+        Random random = new Random(42);
+        mWall = new WallLayout(mGrid);
+        mWall.initializeWall((int) (wallDensity * boardSize * boardSize), random);
+        for (int i = 0; i < PROBES; i++) {
+            mProbes[i] = SnakeBody.cellOf(random.nextInt(boardSize), random.nextInt(boardSize));
+        }
+    }
+
+    @Benchmark
+    public boolean wallCollision() {
+        int cell = mProbes[mNext++ & (PROBES - 1)];
+        return mWall.checkCollision(SnakeBody.cellX(cell), SnakeBody.cellY(cell));
+    }
+
+    // The same test GameEngine runs on the head after every move
+    @Benchmark
+    public boolean deathCheck() {
+        int cell = mProbes[mNext++ & (PROBES - 1)];
+        return mSnake.hasHitSelf()
+                || mGrid.has(SnakeBody.cellX(cell), SnakeBody.cellY(cell), OccupancyGrid.WALL | OccupancyGrid.EDGE);
+    }
+}
@@ -0,0 +1,114 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+import com.gamecodeschool.snakeysnake.engine.Heading;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+
+// A loop through every cell inside the edge ring. A snake that follows it
+// never runs into itself, so it can be grown to any length that fits.
+final class HamiltonianCycle {
+    private static final int NO_TURN = 0;
+    private static final int TURN_CLOCKWISE = 1;
+    private static final int TURN_COUNTER_CLOCKWISE = 2;
+    private static final int TURN_AROUND = 3;
+
+    private final int mWidth;
+    // Which way to go from each cell, indexed by y * width + x
+    private final Heading[] mNext;
+
+    // The inner height (height - 2) must be even for the loop to close
+    HamiltonianCycle(int width, int height) {
+        int w = width - 2;
+        int h = height - 2;
+        if (w < 2 || h < 2 || h % 2 != 0) {
+            throw new IllegalArgumentException("No cycle for a " + width + "x" + height + " board");
+        }
+        mWidth = width;
+        mNext = new Heading[width * height];
+        for (int iy = 0; iy < h; iy++) {
+            for (int ix = 0; ix < w; ix++) {
+                Heading heading;
+                if (ix == 0) {
+                    // Column 0 is the lane back up to the start
+                    heading = iy == 0 ? Heading.RIGHT : Heading.UP;
+                } else if (iy % 2 == 0) {
+                    heading = ix == w - 1 ? Heading.DOWN : Heading.RIGHT;
+                } else if (ix == 1) {
+                    heading = iy == h - 1 ? Heading.LEFT : Heading.DOWN;
+                } else {
+                    heading = Heading.LEFT;
+                }
+                mNext[(iy + 1) * width + ix + 1] = heading;
+            }
+        }
+    }
+
+    // How many cells are on the loop
+    static int size(int width, int height) {
+        return (width - 2) * (height - 2);
+    }
+
+    // Turns the snake the way the loop goes from its head
+    void steer(SnakeBody snake) {
+        switch (turnFor(snake)) {
+            case TURN_CLOCKWISE:
+                snake.turnClockwise();
+                break;
+            case TURN_COUNTER_CLOCKWISE:
+                snake.turnCounterClockwise();
+                break;
+            case TURN_AROUND:
+                snake.turnClockwise();
+                snake.turnClockwise();
+                break;
+            default:
+                break;
+        }
+    }
+
+    // The same, but through the engine so a replay recorder sees the turns
+    void steer(GameEngine engine) {
+        switch (turnFor(engine.getState().getSnake())) {
+            case TURN_CLOCKWISE:
+                engine.turnClockwise();
+                break;
+            case TURN_COUNTER_CLOCKWISE:
+                engine.turnCounterClockwise();
+                break;
+            case TURN_AROUND:
+                engine.turnClockwise();
+                engine.turnClockwise();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private int turnFor(SnakeBody snake) {
+        Heading want = mNext[snake.getHeadY() * mWidth + snake.getHeadX()];
+        Heading heading = snake.getHeading();
+        if (heading == want) {
+            return NO_TURN;
+        }
+        if (heading.rotateClockwise() == want) {
+            return TURN_CLOCKWISE;
+        } else if (heading.rotateCounterClockwise() == want) {
+            return TURN_COUNTER_CLOCKWISE;
+        }
+        // Only a one segment snake can turn right round
+        return TURN_AROUND;
+    }
+
+    void step(SnakeBody snake) {
+        steer(snake);
+        snake.move();
+    }
+
+    // Feeds the snake every move until it is the given length
+    void grow(SnakeBody snake, int length) {
+        while (snake.getLength() < length) {
+            snake.checkDinner(snake.getHeadX(), snake.getHeadY());
+            step(snake);
+        }
+    }
+}
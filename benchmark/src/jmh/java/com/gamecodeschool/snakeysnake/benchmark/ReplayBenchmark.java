@@ -0,0 +1,67 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+import com.gamecodeschool.snakeysnake.engine.ReplayPlayer;
+import com.gamecodeschool.snakeysnake.engine.ReplayRecorder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+// Cost of playing a whole recorded session back. Set replayFile through
+// jmh.benchmarkParameters to measure a replay saved by the game, otherwise
+// one is recorded by following the loop on a phone sized board, walls and
+// deaths included.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayBenchmark {
+    @Param({""})
+    String replayFile;
+
+    private static final int RECORDED_TICKS = 100000;
+
+    private byte[] mReplay;
+
+    @Setup
+    public void setUp() throws IOException {
+        if (replayFile.isEmpty()) {
+            mReplay = record();
+        } else {
+            mReplay = Files.readAllBytes(Paths.get(replayFile));
+        }
+    }
+
+    private static byte[] record() {
+        GameEngine engine = new GameEngine(40, 20, 42);
+        ReplayRecorder recorder = engine.startRecording();
+        engine.newGame();
+        HamiltonianCycle cycle = new HamiltonianCycle(40, 20);
+        for (int i = 0; i < RECORDED_TICKS; i++) {
+            cycle.steer(engine);
+            engine.tick();
+        }
+        return recorder.toByteArray();
+    }
+
+    @Benchmark
+    public long playback() {
+        return new ReplayPlayer(mReplay).playToEnd();
+    }
+}
@@ -0,0 +1,57 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.SnakeBatch;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of one board-step when a whole batch is stepped on one thread, games
+// die and restart as they go. Multiply by the core count for the split version.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnakeBatchBenchmark {
+    private static final int BOARDS = 1024;
+    // Sets of actions cycled through so the timing isn't the Random
+    private static final int PLANS = 16;
+
+    private SnakeBatch mBatch;
+    private int[][] mPlans;
+    private int mStep;
+
+    @Setup
+    public void setUp() {
+        mBatch = new SnakeBatch(BOARDS, 40, 20, 42);
+        Random random = new Random(7);
+        mPlans = new int[PLANS][BOARDS];
+        for (int[] plan : mPlans) {
+            for (int b = 0; b < BOARDS; b++) {
+                int roll = random.nextInt(10);
+                plan[b] = roll == 0 ? SnakeBatch.ACTION_CLOCKWISE
+                        : roll == 1 ? SnakeBatch.ACTION_COUNTER_CLOCKWISE : SnakeBatch.ACTION_STRAIGHT;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BOARDS)
+    public int step() {
+        mBatch.step(mPlans[mStep++ & (PLANS - 1)]);
+        return mBatch.getEvents(0);
+    }
+}
@@ -0,0 +1,51 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of one snake move, which should not depend on the snake's length
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnakeBenchmark {
+    @Param({"128", "512"})
+    int boardSize;
+
+    @Param({"1", "100", "1000", "10000"})
+    int snakeLength;
+
+    private SnakeBody mSnake;
+    private HamiltonianCycle mCycle;
+
+    @Setup
+    public void setUp() {
+        OccupancyGrid grid = new OccupancyGrid(boardSize, boardSize);
+        mSnake = new SnakeBody(grid);
+        mSnake.reset(boardSize, boardSize);
+        mCycle = new HamiltonianCycle(boardSize, boardSize);
+        mCycle.grow(mSnake, snakeLength);
+    }
+
+    @Benchmark
+    public int move() {
+        mCycle.step(mSnake);
+        return mSnake.getHeadX();
+    }
+}
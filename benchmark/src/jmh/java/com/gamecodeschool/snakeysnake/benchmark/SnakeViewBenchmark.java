@@ -0,0 +1,71 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of finding the snake's body in the cells on screen, the way
+// Snake.drawCells does every frame on a big arena. It should not depend on
+// the snake's length, only on how many cells are in view.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnakeViewBenchmark {
+    private static final int BOARD_SIZE = 1000;
+    // About what a phone shows
+    private static final int VIEW_WIDTH = 40;
+    private static final int VIEW_HEIGHT = 24;
+
+    @Param({"1", "10000", "200000"})
+    int snakeLength;
+
+    private OccupancyGrid mGrid;
+    private SnakeBody mSnake;
+    private int mLeft;
+    private int mTop;
+
+    @Setup
+    public void setUp() {
+        mGrid = new OccupancyGrid(BOARD_SIZE, BOARD_SIZE);
+        mSnake = new SnakeBody(mGrid);
+        mSnake.reset(BOARD_SIZE, BOARD_SIZE);
+        new HamiltonianCycle(BOARD_SIZE, BOARD_SIZE).grow(mSnake, snakeLength);
+        // Centred on the head like the camera, kept on the board
+        mLeft = Math.max(0, Math.min(BOARD_SIZE - VIEW_WIDTH, mSnake.getHeadX() - VIEW_WIDTH / 2));
+        mTop = Math.max(0, Math.min(BOARD_SIZE - VIEW_HEIGHT, mSnake.getHeadY() - VIEW_HEIGHT / 2));
+    }
+
+    @Benchmark
+    public int visibleBody() {
+        int head = mSnake.segmentAt(0);
+        int tail = mSnake.segmentAt(mSnake.getLength() - 1);
+        int drawn = 0;
+        for (int y = mTop; y < mTop + VIEW_HEIGHT; y++) {
+            for (int x = mLeft; x < mLeft + VIEW_WIDTH; x++) {
+                if (mGrid.has(x, y, OccupancyGrid.SNAKE)) {
+                    int cell = SnakeBody.cellOf(x, y);
+                    if (cell != head && cell != tail) {
+                        drawn++;
+                    }
+                }
+            }
+        }
+        return drawn;
+    }
+}
@@ -0,0 +1,63 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.OccupancyGrid;
+import com.gamecodeschool.snakeysnake.engine.Pickup;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+import com.gamecodeschool.snakeysnake.engine.SpawnUtil;
+import com.gamecodeschool.snakeysnake.engine.WallLayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of moving an apple to a free cell as the board fills up
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpawnBenchmark {
+    @Param({"128", "512"})
+    int boardSize;
+
+    @Param({"1", "1000", "10000"})
+    int snakeLength;
+
+    @Param({"0.0", "0.01", "0.1"})
+    double wallDensity;
+
+    private SpawnUtil mSpawnUtil;
+    private Pickup mApple;
+    private long mNow;
+
+    @Setup
+    public void setUp() {
+        OccupancyGrid grid = new OccupancyGrid(boardSize, boardSize);
+        SnakeBody snake = new SnakeBody(grid);
+        snake.reset(boardSize, boardSize);
+        new HamiltonianCycle(boardSize, boardSize).grow(snake, snakeLength);
+
+        Random random = new Random(42);
+        new WallLayout(grid).initializeWall((int) (wallDensity * boardSize * boardSize), random);
+        mSpawnUtil = new SpawnUtil(grid, random);
+        mApple = new Pickup(grid);
+    }
+
+    @Benchmark
+    public int spawn() {
+        mSpawnUtil.spawn(mApple, mNow++);
+        return mApple.getX();
+    }
+}
@@ -0,0 +1,55 @@
+package com.gamecodeschool.snakeysnake.benchmark;
+
+import com.gamecodeschool.snakeysnake.engine.GameEngine;
+import com.gamecodeschool.snakeysnake.engine.SnakeBody;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of a whole GameEngine tick: move, apples, power-ups and the death check.
+// The board has no walls so the snake can follow its loop without dying.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TickBenchmark {
+    @Param({"128", "512"})
+    int boardSize;
+
+    @Param({"1", "100", "1000", "10000"})
+    int snakeLength;
+
+    private GameEngine mEngine;
+    private SnakeBody mSnake;
+    private HamiltonianCycle mCycle;
+
+    // Rebuilt every iteration since eating apples keeps growing the snake
+    @Setup(Level.Iteration)
+    public void setUp() {
+        mEngine = new GameEngine(boardSize, boardSize, 42);
+        mEngine.newGame(0);
+        mSnake = mEngine.getState().getSnake();
+        mCycle = new HamiltonianCycle(boardSize, boardSize);
+        mCycle.grow(mSnake, snakeLength);
+    }
+
+    @Benchmark
+    public int tick() {
+        mCycle.steer(mSnake);
+        return mEngine.tick();
+    }
+}
@@ -0,0 +1,84 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.Random;
+
+// Picks an index at random in proportion to integer weights in O(1), using
+// Walker's alias method as set out by Vose. Each of the n columns holds one
+// index up to a threshold and another one above it, so a pick is one random
+// column and one random threshold test. Everything is scaled to whole numbers,
+// so the odds come out exactly as the weights say.
+public class AliasTable {
+    private final int mSize;
+    private final int mTotalWeight;
+    // Column i gives i when the roll is under mThresholds[i], mAliases[i] otherwise
+    private final int[] mThresholds;
+    private final int[] mAliases;
+
+    public AliasTable(int[] weights) {
+        mSize = weights.length;
+        long total = 0;
+        for (int weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight " + weight);
+            }
+            total += weight;
+        }
+        if (mSize == 0 || total == 0) {
+            throw new IllegalArgumentException("Nothing to pick from");
+        }
+        if (total > Integer.MAX_VALUE / mSize) {
+            throw new IllegalArgumentException("Weights add up to too much");
+        }
+        mTotalWeight = (int) total;
+        mThresholds = new int[mSize];
+        mAliases = new int[mSize];
+
+        // Scaled so an average column is worth exactly the total weight
+        int[] scaled = new int[mSize];
+        int[] small = new int[mSize];
+        int[] large = new int[mSize];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < mSize; i++) {
+            scaled[i] = weights[i] * mSize;
+            if (scaled[i] < mTotalWeight) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        // Tops each short column up with some of a tall one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            mThresholds[less] = scaled[less];
+            mAliases[less] = more;
+            scaled[more] -= mTotalWeight - scaled[less];
+            if (scaled[more] < mTotalWeight) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is exactly full, the integer maths leaves nothing over
+        while (largeCount > 0) {
+            int full = large[--largeCount];
+            mThresholds[full] = mTotalWeight;
+            mAliases[full] = full;
+        }
+        while (smallCount > 0) {
+            int full = small[--smallCount];
+            mThresholds[full] = mTotalWeight;
+            mAliases[full] = full;
+        }
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public int pick(Random random) {
+        int column = random.nextInt(mSize);
+        return random.nextInt(mTotalWeight) < mThresholds[column] ? column : mAliases[column];
+    }
+}
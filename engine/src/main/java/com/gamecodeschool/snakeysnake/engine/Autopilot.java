@@ -0,0 +1,341 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.Arrays;
+
+// Plays the game by itself, for the home screen's attract mode and as a load
+// generator that can run thousands of games with no screen. Before each tick
+// it finds a path to a pickup with A* and takes the first step if that leaves
+// the snake room to live, which a breadth first flood fill checks. Otherwise it
+// goes whichever way has the most room, heading for the nearest pickup on a tie.
+// Every search shares the same preallocated arrays and marks the cells it has
+// seen with a stamp instead of clearing them, so steering allocates nothing.
+public class Autopilot {
+    // Most cells one search looks at, so a huge board costs no more per tick than a small one
+    private static final int MAX_SEARCH_CELLS = 1 << 14;
+    // How much room past its own length the snake wants before it takes a path
+    private static final int SPARE_ROOM = 8;
+    // Cells the snake can't move into
+    private static final int BLOCKED = OccupancyGrid.SNAKE | OccupancyGrid.WALL | OccupancyGrid.EDGE;
+    private static final Heading[] HEADINGS = Heading.values();
+
+    private final GameEngine mEngine;
+    private final OccupancyGrid mGrid;
+    private final int mWidth;
+
+    // The search each cell was last reached by, it's been seen by this one when it equals mStamp
+    private final int[] mStamps;
+    private int mStamp;
+    // Ordinal of the heading the path to each cell started with
+    private final byte[] mFirstMoves;
+    // Steps from the head to each cell on the best path found so far
+    private final int[] mCosts;
+    // Packed cells waiting to be looked at by the flood fill
+    private final int[] mQueue;
+    // A*'s open cells as a binary min-heap, see keyOf()
+    private final int[] mHeapCells;
+    private final long[] mHeapKeys;
+    private int mHeapSize;
+
+    public Autopilot(GameEngine engine) {
+        mEngine = engine;
+        mGrid = engine.getState().getGrid();
+        mWidth = mGrid.getWidth();
+        int cells = mWidth * mGrid.getHeight();
+        mStamps = new int[cells];
+        mFirstMoves = new byte[cells];
+        mCosts = new int[cells];
+        mQueue = new int[Math.min(cells, MAX_SEARCH_CELLS)];
+        mHeapCells = new int[mQueue.length];
+        mHeapKeys = new long[mQueue.length];
+    }
+
+    // Turns the snake through the engine, so a replay recorder sees it.
+    // Call before each GameEngine.tick().
+    public void steer() {
+        Heading heading = mEngine.getState().getSnake().getHeading();
+        Heading want = choose();
+        if (want == heading.rotateClockwise()) {
+            mEngine.turnClockwise();
+        } else if (want == heading.rotateCounterClockwise()) {
+            mEngine.turnCounterClockwise();
+        }
+    }
+
+    // Which way the snake should go next, never straight back on itself
+    public Heading choose() {
+        SnakeBody snake = mEngine.getState().getSnake();
+        Heading heading = snake.getHeading();
+        int x = snake.getHeadX();
+        int y = snake.getHeadY();
+        int needed = Math.min(snake.getLength() + SPARE_ROOM, mQueue.length);
+        // A sped up snake goes more than one cell before it can turn again
+        int steps = Math.max(1, snake.getMover().peekCellsThisTick());
+
+        Heading toPickup = searchPickup(x, y, heading);
+        if (toPickup != null && roomAfter(x, y, toPickup, steps, needed) >= needed) {
+            return toPickup;
+        }
+
+        // Survive first, then get closer to something to eat
+        Heading best = heading;
+        int bestRoom = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int turn = 0; turn < 3; turn++) {
+            Heading option = turn == 0 ? heading
+                    : turn == 1 ? heading.rotateClockwise() : heading.rotateCounterClockwise();
+            int room = roomAfter(x, y, option, steps, needed);
+            if (room == 0 || room < bestRoom) {
+                continue;
+            }
+            int distance = distanceToPickup(x + option.dx, y + option.dy);
+            if (room > bestRoom || distance < bestDistance) {
+                best = option;
+                bestRoom = room;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // First step of a shortest path to the nearest pickup, or null if A*
+    // gives up after MAX_SEARCH_CELLS. A different pickup met on the way will do too.
+    private Heading searchPickup(int x, int y, Heading heading) {
+        int target = nearestPickup(x, y);
+        if (target == -1) {
+            return null;
+        }
+        int tx = SnakeBody.cellX(target);
+        int ty = SnakeBody.cellY(target);
+        nextStamp();
+        mStamps[y * mWidth + x] = mStamp;
+        mCosts[y * mWidth + x] = 0;
+        mHeapSize = 0;
+        // The first ring is the three ways the snake can go
+        for (int turn = 0; turn < 3; turn++) {
+            Heading option = turn == 0 ? heading
+                    : turn == 1 ? heading.rotateClockwise() : heading.rotateCounterClockwise();
+            int nx = x + option.dx;
+            int ny = y + option.dy;
+            int cell = mGrid.get(nx, ny);
+            if ((cell & BLOCKED) != 0) {
+                continue;
+            }
+            if ((cell & OccupancyGrid.APPLE) != 0) {
+                return option;
+            }
+            int index = ny * mWidth + nx;
+            mStamps[index] = mStamp;
+            mCosts[index] = 1;
+            mFirstMoves[index] = (byte) option.ordinal();
+            push(SnakeBody.cellOf(nx, ny), keyOf(1, nx, ny, tx, ty));
+        }
+        for (int expanded = 0; mHeapSize > 0 && expanded < MAX_SEARCH_CELLS; expanded++) {
+            long key = mHeapKeys[0];
+            int packed = pop();
+            int cx = SnakeBody.cellX(packed);
+            int cy = SnakeBody.cellY(packed);
+            int from = cy * mWidth + cx;
+            int cost = mCosts[from];
+            if (key != keyOf(cost, cx, cy, tx, ty)) {
+                // A better path to this cell was found after this one was queued
+                continue;
+            }
+            byte first = mFirstMoves[from];
+            for (Heading direction : HEADINGS) {
+                int nx = cx + direction.dx;
+                int ny = cy + direction.dy;
+                int cell = mGrid.get(nx, ny);
+                if ((cell & BLOCKED) != 0) {
+                    continue;
+                }
+                int index = ny * mWidth + nx;
+                if (mStamps[index] == mStamp && mCosts[index] <= cost + 1) {
+                    continue;
+                }
+                if ((cell & OccupancyGrid.APPLE) != 0) {
+                    return HEADINGS[first];
+                }
+                mStamps[index] = mStamp;
+                mCosts[index] = cost + 1;
+                mFirstMoves[index] = first;
+                push(SnakeBody.cellOf(nx, ny), keyOf(cost + 1, nx, ny, tx, ty));
+            }
+        }
+        return null;
+    }
+
+    // Steps so far plus steps still to go, and on a tie whichever has come
+    // further. On an open board that heads straight for the target instead
+    // of trying every equally good cell in between.
+    private static long keyOf(int cost, int x, int y, int tx, int ty) {
+        long estimate = cost + Math.abs(tx - x) + Math.abs(ty - y);
+        return (estimate << 32) - cost;
+    }
+
+    // Drops the cell when the heap is full, the search is past its budget by then anyway
+    private void push(int cell, long key) {
+        if (mHeapSize == mHeapCells.length) {
+            return;
+        }
+        int i = mHeapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (mHeapKeys[parent] <= key) {
+                break;
+            }
+            mHeapCells[i] = mHeapCells[parent];
+            mHeapKeys[i] = mHeapKeys[parent];
+            i = parent;
+        }
+        mHeapCells[i] = cell;
+        mHeapKeys[i] = key;
+    }
+
+    // Takes the cell with the lowest key off the heap
+    private int pop() {
+        int top = mHeapCells[0];
+        mHeapSize--;
+        int cell = mHeapCells[mHeapSize];
+        long key = mHeapKeys[mHeapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= mHeapSize) {
+                break;
+            }
+            if (child + 1 < mHeapSize && mHeapKeys[child + 1] < mHeapKeys[child]) {
+                child++;
+            }
+            if (key <= mHeapKeys[child]) {
+                break;
+            }
+            mHeapCells[i] = mHeapCells[child];
+            mHeapKeys[i] = mHeapKeys[child];
+            i = child;
+        }
+        mHeapCells[i] = cell;
+        mHeapKeys[i] = key;
+        return top;
+    }
+
+    // How many cells the snake could reach after going steps cells from x, y,
+    // counting no further than limit. 0 means the move itself is a crash.
+    private int roomAfter(int x, int y, Heading heading, int steps, int limit) {
+        int sx = x;
+        int sy = y;
+        for (int i = 0; i < steps; i++) {
+            sx += heading.dx;
+            sy += heading.dy;
+            if (mGrid.has(sx, sy, BLOCKED)) {
+                return 0;
+            }
+        }
+        nextStamp();
+        mStamps[sy * mWidth + sx] = mStamp;
+        mQueue[0] = SnakeBody.cellOf(sx, sy);
+        int tail = 1;
+        for (int head = 0; head < tail && tail < limit; head++) {
+            int cx = SnakeBody.cellX(mQueue[head]);
+            int cy = SnakeBody.cellY(mQueue[head]);
+            for (Heading direction : HEADINGS) {
+                int nx = cx + direction.dx;
+                int ny = cy + direction.dy;
+                if (mGrid.has(nx, ny, BLOCKED)) {
+                    continue;
+                }
+                int index = ny * mWidth + nx;
+                if (mStamps[index] != mStamp && tail < limit) {
+                    mStamps[index] = mStamp;
+                    mQueue[tail++] = SnakeBody.cellOf(nx, ny);
+                }
+            }
+        }
+        return tail;
+    }
+
+    // Steps to the closest pickup ignoring what's in the way
+    private int distanceToPickup(int x, int y) {
+        int target = nearestPickup(x, y);
+        if (target == -1) {
+            return Integer.MAX_VALUE;
+        }
+        return Math.abs(SnakeBody.cellX(target) - x) + Math.abs(SnakeBody.cellY(target) - y);
+    }
+
+    // The packed cell of the closest pickup ignoring what's in the way, or -1
+    private int nearestPickup(int x, int y) {
+        PickupPool pickups = mEngine.getState().getPickups();
+        int best = -1;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < pickups.getActiveCount(); i++) {
+            Pickup pickup = pickups.getActive(i);
+            int distance = Math.abs(pickup.getX() - x) + Math.abs(pickup.getY() - y);
+            if (distance < bestDistance) {
+                best = SnakeBody.cellOf(pickup.getX(), pickup.getY());
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Starts a new search without clearing anything, unless the stamps wrap
+    private void nextStamp() {
+        mStamp++;
+        if (mStamp == 0) {
+            Arrays.fill(mStamps, 0);
+            mStamp = 1;
+        }
+    }
+
+    // Plays games with no screen and prints how they went, as a soak test:
+    //   java -cp engine.jar com.gamecodeschool.snakeysnake.engine.Autopilot [games] [width] [height] [seed]
+    // A game that outlasts the tick limit is ended so one good run can't stall the rest.
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        long maxTicksPerGame = 100L * width * height;
+
+        GameEngine engine = new GameEngine(width, height, seed);
+        Autopilot autopilot = new Autopilot(engine);
+        final LatencyHistogram scores = new LatencyHistogram();
+        // The engine starts the next game itself on a death, the event has the score it ended on
+        engine.getEvents().addListener(new GameEvents.Listener() {
+            @Override
+            public void onGameEvent(int type, int a, int b, long timeMillis) {
+                if (type == GameEvents.DEATH) {
+                    scores.record(b);
+                }
+            }
+        });
+        long ticks = 0;
+        int timedOut = 0;
+        long start = System.nanoTime();
+        for (int game = 0; game < games; game++) {
+            engine.newGame();
+            long gameTicks = 0;
+            while (true) {
+                autopilot.steer();
+                int events = engine.tick();
+                gameTicks++;
+                engine.getEvents().dispatch();
+                if ((events & GameEngine.EVENT_DIED) != 0) {
+                    break;
+                }
+                if (gameTicks >= maxTicksPerGame) {
+                    scores.record(engine.getState().getScore());
+                    timedOut++;
+                    break;
+                }
+            }
+            ticks += gameTicks;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(games + " games on " + width + "x" + height + ", " + ticks + " ticks, "
+                + timedOut + " hit the tick limit");
+        System.out.println("score mean " + scores.getMean() + " p50 " + scores.getPercentile(50)
+                + " p99 " + scores.getPercentile(99) + " max " + scores.getMax());
+        System.out.println(String.format("%.0f ticks/s", ticks / Math.max(seconds, 1e-9)));
+    }
+}
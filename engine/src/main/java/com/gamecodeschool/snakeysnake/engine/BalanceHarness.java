@@ -0,0 +1,226 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Plays lots of headless games with the Autopilot for each of a set of spawn
+// and power-up settings, spread over every core with fork-join, and reports
+// how the scores, survival times and pickups eaten came out for each one.
+// It's for tuning balance without sitting through play sessions:
+//   java -cp engine.jar com.gamecodeschool.snakeysnake.engine.BalanceHarness [games] [width] [height] [seed]
+// Every game gets its own engine seeded from its number, so the results are
+// the same however the work gets split up.
+public class BalanceHarness {
+    // Below this many games a task just plays them rather than splitting again
+    private static final int GAMES_PER_TASK = 8;
+
+    // One point in the sweep
+    public static final class Setting {
+        // Percent of spawns that are power-ups, split evenly between golden and poison
+        final int mPowerPercent;
+        // How long golden and poison apples last once eaten
+        final long mDurationMillis;
+        // How long a pickup sits uneaten before it moves
+        final long mLifetimeMillis;
+
+        public Setting(int powerPercent, long durationMillis, long lifetimeMillis) {
+            if (powerPercent < 0 || powerPercent > 100 || durationMillis < 0 || lifetimeMillis <= 0) {
+                throw new IllegalArgumentException("Bad balance setting");
+            }
+            mPowerPercent = powerPercent;
+            mDurationMillis = durationMillis;
+            mLifetimeMillis = lifetimeMillis;
+        }
+
+        // A fresh registry per game, registries aren't safe to share between threads
+        PowerUpRegistry registry() {
+            PowerUpType apple = PowerUpType.APPLE;
+            PowerUpType golden = PowerUpType.GOLDEN_APPLE;
+            PowerUpType poison = PowerUpType.POISON_APPLE;
+            int goldenPercent = mPowerPercent / 2;
+            return new PowerUpRegistry()
+                    .register(new PowerUpType(apple.getId(), apple.getName(), 100 - mPowerPercent,
+                            apple.getDurationMillis(), apple.getSpeed(), apple.getScoreMultiplier(),
+                            apple.getPoints(), apple.getGrowth()))
+                    .register(new PowerUpType(golden.getId(), golden.getName(), goldenPercent,
+                            mDurationMillis, golden.getSpeed(), golden.getScoreMultiplier(),
+                            golden.getPoints(), golden.getGrowth()))
+                    .register(new PowerUpType(poison.getId(), poison.getName(), mPowerPercent - goldenPercent,
+                            mDurationMillis, poison.getSpeed(), poison.getScoreMultiplier(),
+                            poison.getPoints(), poison.getGrowth()))
+                    .setPickupLifetimeMillis(mLifetimeMillis);
+        }
+
+        @Override
+        public String toString() {
+            return mPowerPercent + "% power, " + mDurationMillis + "ms effect, "
+                    + mLifetimeMillis + "ms lifetime";
+        }
+    }
+
+    // How the games for one setting went, filled in from many threads at once
+    public static final class Result {
+        public final Setting setting;
+        public final LatencyHistogram scores = new LatencyHistogram();
+        // In engine milliseconds
+        public final LatencyHistogram survival = new LatencyHistogram();
+        // Indexed by PowerUpType id
+        public final AtomicLongArray eaten = new AtomicLongArray(PowerUpType.MAX_ID + 1);
+        public final AtomicInteger timedOut = new AtomicInteger();
+
+        Result(Setting setting) {
+            this.setting = setting;
+        }
+    }
+
+    private final int mWidth;
+    private final int mHeight;
+    private final long mSeed;
+    private final int mGamesPerSetting;
+    private final long mMaxTicksPerGame;
+
+    public BalanceHarness(int width, int height, long seed, int gamesPerSetting) {
+        if (gamesPerSetting <= 0) {
+            throw new IllegalArgumentException("Need at least one game per setting");
+        }
+        mWidth = width;
+        mHeight = height;
+        mSeed = seed;
+        mGamesPerSetting = gamesPerSetting;
+        // Same limit as the Autopilot soak test
+        mMaxTicksPerGame = 100L * width * height;
+    }
+
+    // Plays every setting on the given pool, results are in the same order as settings
+    public Result[] run(Setting[] settings, ForkJoinPool pool) {
+        Result[] results = new Result[settings.length];
+        for (int i = 0; i < settings.length; i++) {
+            results[i] = new Result(settings[i]);
+        }
+        pool.invoke(new Games(results, 0, (long) settings.length * mGamesPerSetting));
+        return results;
+    }
+
+    // Games numbered from start up to end, game n is for setting n / mGamesPerSetting
+    private final class Games extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Result[] mResults;
+        private final long mStart;
+        private final long mEnd;
+
+        Games(Result[] results, long start, long end) {
+            mResults = results;
+            mStart = start;
+            mEnd = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (mEnd - mStart <= GAMES_PER_TASK) {
+                for (long game = mStart; game < mEnd; game++) {
+                    play(mResults[(int) (game / mGamesPerSetting)], game);
+                }
+                return;
+            }
+            long middle = (mStart + mEnd) >>> 1;
+            invokeAll(new Games(mResults, mStart, middle), new Games(mResults, middle, mEnd));
+        }
+    }
+
+    private void play(final Result result, long game) {
+        GameEngine engine = new GameEngine(mWidth, mHeight, seedFor(game), result.setting.registry());
+        Autopilot autopilot = new Autopilot(engine);
+        engine.getEvents().addListener(new GameEvents.Listener() {
+            @Override
+            public void onGameEvent(int type, int a, int b, long timeMillis) {
+                if (type == GameEvents.APPLE_EATEN) {
+                    result.eaten.incrementAndGet(a);
+                } else if (type == GameEvents.DEATH) {
+                    // The engine starts the next game itself, b is the score this one ended on
+                    result.scores.record(b);
+                }
+            }
+        });
+        engine.newGame();
+        long ticks = 0;
+        while (true) {
+            autopilot.steer();
+            int events = engine.tick();
+            ticks++;
+            engine.getEvents().dispatch();
+            if ((events & GameEngine.EVENT_DIED) != 0) {
+                break;
+            }
+            if (ticks >= mMaxTicksPerGame) {
+                result.scores.record(engine.getState().getScore());
+                result.timedOut.incrementAndGet();
+                break;
+            }
+        }
+        result.survival.record(ticks * engine.getTickMillis());
+    }
+
+    // Spreads neighbouring game numbers out over the seed space (SplitMix64's finaliser)
+    private long seedFor(long game) {
+        long z = mSeed + (game + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Power-up share, effect length and pickup lifetime around what the game ships with
+    public static Setting[] defaultSweep() {
+        int[] powerPercents = {10, 20, 30, 40, 50};
+        long[] durations = {5000, 10000, 15000};
+        long[] lifetimes = {4000, Pickup.MAX_TIME, 12000};
+        ArrayList<Setting> settings = new ArrayList<>();
+        for (int powerPercent : powerPercents) {
+            for (long duration : durations) {
+                for (long lifetime : lifetimes) {
+                    settings.add(new Setting(powerPercent, duration, lifetime));
+                }
+            }
+        }
+        return settings.toArray(new Setting[settings.size()]);
+    }
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        Setting[] settings = defaultSweep();
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+        Result[] results = new BalanceHarness(width, height, seed, games).run(settings, pool);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.println(games + " games per setting on " + width + "x" + height + ", "
+                + settings.length + " settings, " + pool.getParallelism() + " threads, "
+                + String.format("%.1fs", seconds));
+        System.out.println(String.format("%5s %6s %6s | %5s %5s %5s | %7s %7s | %6s %6s %6s | %s",
+                "power", "effect", "life", "mean", "p50", "p99", "surv", "p99", "apple", "golden",
+                "poison", "limit"));
+        for (Result result : results) {
+            Setting setting = result.setting;
+            long apples = result.eaten.get(PowerUpType.APPLE.getId());
+            long golden = result.eaten.get(PowerUpType.GOLDEN_APPLE.getId());
+            long poison = result.eaten.get(PowerUpType.POISON_APPLE.getId());
+            double total = Math.max(1, apples + golden + poison);
+            System.out.println(String.format(
+                    "%4d%% %5.1fs %5.1fs | %5d %5d %5d | %6.1fs %6.1fs | %5.1f%% %5.1f%% %5.1f%% | %d",
+                    setting.mPowerPercent, setting.mDurationMillis / 1000.0,
+                    setting.mLifetimeMillis / 1000.0,
+                    result.scores.getMean(), result.scores.getPercentile(50),
+                    result.scores.getPercentile(99),
+                    result.survival.getMean() / 1000.0, result.survival.getPercentile(99) / 1000.0,
+                    100 * apples / total, 100 * golden / total, 100 * poison / total,
+                    result.timedOut.get()));
+        }
+    }
+}
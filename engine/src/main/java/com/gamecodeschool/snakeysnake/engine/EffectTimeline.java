@@ -0,0 +1,186 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+
+// The timed effects running right now, in a binary min-heap ordered by when
+// they end. A tick only looks at the top of the heap, so it costs nothing
+// until something expires. The combined speed and score multipliers are
+// worked out again only when an effect starts or ends.
+public class EffectTimeline {
+    static final int MAX_EFFECTS = 16;
+
+    // Heap arrays, the effect ending soonest is at 0
+    private final long[] mEnds = new long[MAX_EFFECTS];
+    private final PowerUpType[] mTypes = new PowerUpType[MAX_EFFECTS];
+    private int mSize;
+
+    // Every active effect multiplied together
+    private int mSpeed = MoveScheduler.ONE;
+    private int mScoreMultiplier = 1;
+
+    // Where the combined speed goes whenever it changes
+    private final MoveScheduler mMover;
+
+    EffectTimeline(MoveScheduler mover) {
+        mMover = mover;
+    }
+
+    public void clear() {
+        mSize = 0;
+        for (int i = 0; i < MAX_EFFECTS; i++) {
+            mTypes[i] = null;
+        }
+        update();
+    }
+
+    // Starts type's timed effect at now. Eating two of the same thing stacks.
+    // With the heap full, the effect that would end first makes way.
+    public void add(PowerUpType type, long now) {
+        if (!type.hasTimedEffect()) {
+            return;
+        }
+        if (mSize == MAX_EFFECTS) {
+            removeTop();
+        }
+        int i = mSize++;
+        mEnds[i] = now + type.getDurationMillis();
+        mTypes[i] = type;
+        siftUp(i);
+        update();
+    }
+
+    // Drops every effect that has ended by now, returns how many did
+    public int expire(long now) {
+        int expired = 0;
+        while (mSize > 0 && mEnds[0] <= now) {
+            removeTop();
+            expired++;
+        }
+        if (expired > 0) {
+            update();
+        }
+        return expired;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    // When the next effect ends, or Long.MAX_VALUE if nothing is running
+    public long getNextEnd() {
+        return mSize == 0 ? Long.MAX_VALUE : mEnds[0];
+    }
+
+    public int getSpeed() {
+        return mSpeed;
+    }
+
+    public int getScoreMultiplier() {
+        return mScoreMultiplier;
+    }
+
+    // Is an effect of this type running?
+    public boolean isActive(PowerUpType type) {
+        for (int i = 0; i < mSize; i++) {
+            if (mTypes[i] == type) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void removeTop() {
+        mSize--;
+        mEnds[0] = mEnds[mSize];
+        mTypes[0] = mTypes[mSize];
+        mTypes[mSize] = null;
+        if (mSize > 0) {
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (mEnds[parent] <= mEnds[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < mSize && mEnds[left] < mEnds[smallest]) {
+                smallest = left;
+            }
+            if (right < mSize && mEnds[right] < mEnds[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long end = mEnds[a];
+        mEnds[a] = mEnds[b];
+        mEnds[b] = end;
+        PowerUpType type = mTypes[a];
+        mTypes[a] = mTypes[b];
+        mTypes[b] = type;
+    }
+
+    // Combines what's left, only runs when an effect starts or ends
+    private void update() {
+        long speed = MoveScheduler.ONE;
+        long score = 1;
+        for (int i = 0; i < mSize; i++) {
+            speed = speed * mTypes[i].getSpeed() / MoveScheduler.ONE;
+            // Keeps a long stack from overflowing, MoveScheduler clamps it properly
+            speed = Math.max(1, Math.min(1 << 30, speed));
+            score = Math.min(1 << 20, score * mTypes[i].getScoreMultiplier());
+        }
+        mSpeed = (int) speed;
+        mScoreMultiplier = (int) score;
+        mMover.setEffectSpeed(mSpeed);
+    }
+
+    int snapshotSize() {
+        return 4 + mSize * (1 + 8);
+    }
+
+    // Heap order is saved as it is, so a restored game expires things in the same order
+    void save(ByteBuffer out) {
+        out.putInt(mSize);
+        for (int i = 0; i < mSize; i++) {
+            out.put((byte) mTypes[i].getId());
+            out.putLong(mEnds[i]);
+        }
+    }
+
+    void restore(ByteBuffer in, PowerUpRegistry registry) {
+        int size = in.getInt();
+        if (size < 0 || size > MAX_EFFECTS) {
+            throw new IllegalArgumentException("Bad effect count " + size);
+        }
+        clear();
+        for (int i = 0; i < size; i++) {
+            PowerUpType type = registry.byId(in.get());
+            if (type == null) {
+                throw new IllegalArgumentException("Snapshot has an unknown power-up");
+            }
+            mTypes[i] = type;
+            mEnds[i] = in.getLong();
+        }
+        mSize = size;
+        update();
+    }
+}
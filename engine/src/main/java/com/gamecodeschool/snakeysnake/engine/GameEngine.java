@@ -0,0 +1,270 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+// The rules of the game: moving, eating, scoring and dying.
+// Runs on a plain JVM so it can be tested and benchmarked off the device.
+public class GameEngine {
+    // Bits returned by tick() saying what happened in it
+    public static final int EVENT_NONE = 0;
+    public static final int EVENT_ATE_APPLE = 1;
+    public static final int EVENT_HIT_WALL = 2;
+    public static final int EVENT_DIED = 4;
+
+    //number of wall segments placed each game
+    private static final int WALL_SEGMENTS = 5;
+    // Boards bigger than any screen's worth of cells get proportionally more,
+    // so a large arena isn't left almost empty
+    private static final int SCREEN_BOARD_CELLS = 40 * 40;
+    // How much engine time a tick covers until setTickMillis() says otherwise
+    static final long DEFAULT_TICK_MILLIS = 100;
+    private final int mWallSegments;
+
+    private final GameState mState;
+    private final SpawnUtil mSpawnUtil;
+
+    // How much engine time one tick covers
+    private long mTickMillis = DEFAULT_TICK_MILLIS;
+
+    // Records every input when set, see startRecording()
+    private ReplayRecorder mRecorder;
+    // Set by the first newGame() or tick()
+    private boolean mStarted;
+    // Eating, power-ups, deaths and score changes, for whoever drives the engine
+    private final GameEvents mEvents = new GameEvents();
+
+    public GameEngine(int width, int height, long seed) {
+        this(width, height, seed, PowerUpRegistry.defaults());
+    }
+
+    // powerUps is every type of pickup that can spawn, see PowerUpType
+    public GameEngine(int width, int height, long seed, PowerUpRegistry powerUps) {
+        mState = new GameState(width, height, seed, powerUps);
+        mSpawnUtil = new SpawnUtil(mState.getGrid(), mState.getRandom(), powerUps);
+        mWallSegments = wallSegmentsFor(width, height);
+    }
+
+    // How many wall segments a board this size gets each game, SnakeBatch uses it too
+    static int wallSegmentsFor(int width, int height) {
+        return Math.max(WALL_SEGMENTS, (int) ((long) WALL_SEGMENTS * width * height / SCREEN_BOARD_CELLS));
+    }
+
+    public GameState getState() {
+        return mState;
+    }
+
+    public void setTickMillis(long tickMillis) {
+        mTickMillis = tickMillis;
+        if (mRecorder != null) {
+            mRecorder.record(ReplayRecorder.OP_TICK_MILLIS, tickMillis);
+        }
+    }
+
+    // Starts recording a replay of this engine. Before the first game the seed
+    // is enough to start from, after that the replay begins with a snapshot.
+    public ReplayRecorder startRecording() {
+        byte[] snapshot = mStarted ? GameSnapshot.toByteArray(this) : null;
+        mRecorder = new ReplayRecorder(mState.getSeed(), mState.getWidth(), mState.getHeight(), mTickMillis,
+                mState.getPowerUps(), snapshot);
+        return mRecorder;
+    }
+
+    // Called by GameSnapshot once the state has been put back
+    void restored() {
+        mStarted = true;
+    }
+
+    public ReplayRecorder getRecorder() {
+        return mRecorder;
+    }
+
+    public long getTickMillis() {
+        return mTickMillis;
+    }
+
+    // Call dispatch() on it once per tick to hear what happened
+    public GameEvents getEvents() {
+        return mEvents;
+    }
+
+    // How many apples and power-ups to keep on the board, up to GameState.MAX_PICKUPS
+    public void setPickupCount(int count) {
+        if (mRecorder != null) {
+            mRecorder.record(ReplayRecorder.OP_PICKUP_COUNT, count);
+        }
+        mState.getPickups().setTarget(count);
+    }
+
+    // Called to start a new game
+    public void newGame() {
+        if (mRecorder != null) {
+            mRecorder.record(ReplayRecorder.OP_NEW_GAME);
+        }
+        startNewGame();
+    }
+
+    // Not recorded, since dying starts one of these by itself
+    private void startNewGame() {
+        resetBoard();
+        // Reset the score
+        setScore(0);
+    }
+
+    // Puts the snake back, then the walls round it, then the apples round both,
+    // so nothing gets placed on top of anything else
+    private void resetBoard() {
+        mStarted = true;
+        // reset the snake and whatever it had eaten
+        mState.getSnake().reset(mState.getWidth(), mState.getHeight());
+        mState.getEffects().clear();
+        mState.getPickups().clear();
+        //num of segments
+        mState.getWall().initializeWall(mWallSegments, mState.getRandom());
+        // Get the apples ready for dinner
+        fillPickups();
+    }
+
+    // Overloaded newGame method with custom initial score
+    public void newGame(int initialScore) {
+        if (mRecorder != null) {
+            mRecorder.record(ReplayRecorder.OP_NEW_GAME_WITH_SCORE, ReplayRecorder.zigzag(initialScore));
+        }
+        resetBoard();
+        setScore(initialScore);
+    }
+
+    public void turnClockwise() {
+        if (mRecorder != null) {
+            mRecorder.record(ReplayRecorder.OP_TURN_CLOCKWISE);
+        }
+        mState.getSnake().turnClockwise();
+    }
+
+    public void turnCounterClockwise() {
+        if (mRecorder != null) {
+            mRecorder.record(ReplayRecorder.OP_TURN_COUNTER_CLOCKWISE);
+        }
+        mState.getSnake().turnCounterClockwise();
+    }
+
+    // One fixed simulation step, returns the EVENT_ bits for what happened
+    public int tick() {
+        mStarted = true;
+        if (mRecorder != null) {
+            mRecorder.tick();
+        }
+        mState.advanceTime(mTickMillis);
+        long now = mState.getTimeMillis();
+
+        // Only looks past the first effect when it has run out
+        mState.getEffects().expire(now);
+
+        // Move a cell at a time so a fast snake can't jump over an apple or a wall
+        SnakeBody snake = mState.getSnake();
+        int cells = snake.getMover().cellsThisTick();
+        snake.beginMove();
+        int events = EVENT_NONE;
+        for (int i = 0; i < cells; i++) {
+            snake.step();
+            //Check if the snake ate an apple
+            events |= checkAppleCollision();
+            //Check if the snake died, the new game doesn't carry on moving
+            events |= checkSnakeDeath();
+            if ((events & EVENT_DIED) != 0) {
+                return events;
+            }
+        }
+        respawnOldPickups(now);
+        fillPickups();
+        return events;
+    }
+
+    // Spawns pickups until there are as many on the board as there should be
+    private void fillPickups() {
+        PickupPool pickups = mState.getPickups();
+        long now = mState.getTimeMillis();
+        while (pickups.getActiveCount() < pickups.getTarget()) {
+            Pickup pickup = pickups.obtain();
+            if (pickup == null) {
+                return;
+            }
+            if (!mSpawnUtil.spawn(pickup, now)) {
+                // The board is full, try again next tick
+                pickups.release(pickup);
+                return;
+            }
+        }
+    }
+
+    // Moves pickups that have sat uneaten for too long
+    private void respawnOldPickups(long now) {
+        PickupPool pickups = mState.getPickups();
+        long lifetime = mState.getPowerUps().getPickupLifetimeMillis();
+        for (int i = 0; i < pickups.getActiveCount(); i++) {
+            Pickup pickup = pickups.getActive(i);
+            if (pickup.needsRespawn(now, lifetime)) {
+                mSpawnUtil.spawn(pickup, now);
+            }
+        }
+    }
+
+
+    //Did the head of the snake eat an apple? The grid knows which one is
+    //under the head, so this doesn't depend on how many are out
+    private int checkAppleCollision() {
+        SnakeBody snake = mState.getSnake();
+        Pickup pickup = mState.getPickups().at(snake.getHeadX(), snake.getHeadY());
+        if (pickup == null) {
+            return EVENT_NONE;
+        }
+        eat(pickup);
+        return EVENT_ATE_APPLE;
+    }
+
+    // Scores, grows and starts the effects of a pickup, then takes it off the
+    // board. A new one spawns at the end of the tick.
+    private void eat(Pickup pickup) {
+        SnakeBody snake = mState.getSnake();
+        PowerUpType type = pickup.getType();
+        EffectTimeline effects = mState.getEffects();
+        long now = mState.getTimeMillis();
+        // Anything already running multiplies the points, then this one starts
+        int points = type.getPoints() * effects.getScoreMultiplier();
+        mEvents.publish(GameEvents.APPLE_EATEN, type.getId(), points, now);
+        setScore(mState.getScore() + points);
+        snake.grow(type.getGrowth());
+        effects.add(type, now);
+        if (type.hasTimedEffect()) {
+            mEvents.publish(GameEvents.POWER_UP_APPLIED, type.getId(), (int) Math.min(Integer.MAX_VALUE, type.getDurationMillis()), now);
+        }
+        mState.getPickups().release(pickup);
+    }
+
+    // Every score change the engine makes goes through here so it gets an event
+    private void setScore(int score) {
+        int change = score - mState.getScore();
+        mState.setScore(score);
+        if (change != 0) {
+            mEvents.publish(GameEvents.SCORE_CHANGED, score, change, mState.getTimeMillis());
+        }
+    }
+
+    private int checkSnakeDeath() {
+        SnakeBody snake = mState.getSnake();
+        OccupancyGrid grid = mState.getGrid();
+        int x = snake.getHeadX();
+        int y = snake.getHeadY();
+
+        int events = EVENT_NONE;
+        if (grid.has(x, y, OccupancyGrid.WALL)) {
+            events |= EVENT_HIT_WALL;
+        }
+        // Cells off the board count as edge
+        if (snake.hasHitSelf() || grid.has(x, y, OccupancyGrid.WALL | OccupancyGrid.EDGE)) {
+            snake.setGameOver(true);
+            events |= EVENT_DIED;
+            mEvents.publish(GameEvents.DEATH, events, mState.getScore(), mState.getTimeMillis());
+            //ends the game ready to restart
+            startNewGame();
+        }
+        return events;
+    }
+}
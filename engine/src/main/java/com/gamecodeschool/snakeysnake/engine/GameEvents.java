@@ -0,0 +1,103 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+// What happened in the game, as typed events in a ring that is allocated up
+// front. The engine publishes as it ticks and whoever drives the engine calls
+// dispatch() once per tick to hand them to every listener, so scoring, sound
+// and the HUD react to the same events in the same order without the engine
+// knowing about any of them. Each event is a few ints in parallel arrays, so
+// nothing is allocated per event. The ring belongs to the thread that ticks.
+public class GameEvents {
+    // a is the PowerUpType id, b the points it scored after multipliers
+    public static final int APPLE_EATEN = 0;
+    // a is the PowerUpType id, b how many milliseconds the effect lasts
+    public static final int POWER_UP_APPLIED = 1;
+    // a is the GameEngine.EVENT_ bits for how it died, b the score it ended on
+    public static final int DEATH = 2;
+    // a is the new score, b how much it went up or down by
+    public static final int SCORE_CHANGED = 3;
+
+    public interface Listener {
+        void onGameEvent(int type, int a, int b, long timeMillis);
+    }
+
+    // Plenty for the busiest tick, a fast snake eating several power-ups and dying
+    private static final int CAPACITY = 64;
+    private static final int MAX_LISTENERS = 8;
+
+    private final int[] mTypes = new int[CAPACITY];
+    private final int[] mA = new int[CAPACITY];
+    private final int[] mB = new int[CAPACITY];
+    private final long[] mTimes = new long[CAPACITY];
+    // Next event to hand out and next slot to fill, both only ever go up
+    private long mHead;
+    private long mTail;
+    // Events overwritten before anyone dispatched them
+    private long mDropped;
+
+    private final Listener[] mListeners = new Listener[MAX_LISTENERS];
+    private int mListenerCount;
+
+    public void addListener(Listener listener) {
+        if (mListenerCount == mListeners.length) {
+            throw new IllegalStateException("Too many game event listeners");
+        }
+        mListeners[mListenerCount++] = listener;
+    }
+
+    public void removeListener(Listener listener) {
+        for (int i = 0; i < mListenerCount; i++) {
+            if (mListeners[i] == listener) {
+                System.arraycopy(mListeners, i + 1, mListeners, i, mListenerCount - i - 1);
+                mListeners[--mListenerCount] = null;
+                return;
+            }
+        }
+    }
+
+    // When nobody is dispatching, like a headless engine, the oldest events make way
+    void publish(int type, int a, int b, long timeMillis) {
+        if (mTail - mHead == CAPACITY) {
+            mHead++;
+            mDropped++;
+        }
+        int slot = (int) (mTail & (CAPACITY - 1));
+        mTypes[slot] = type;
+        mA[slot] = a;
+        mB[slot] = b;
+        mTimes[slot] = timeMillis;
+        mTail++;
+    }
+
+    // Hands every waiting event to every listener in the order they happened,
+    // returns how many there were
+    public int dispatch() {
+        int count = 0;
+        while (mHead < mTail) {
+            int slot = (int) (mHead & (CAPACITY - 1));
+            int type = mTypes[slot];
+            int a = mA[slot];
+            int b = mB[slot];
+            long time = mTimes[slot];
+            // Taken off first, anything a listener publishes comes round after it
+            mHead++;
+            for (int i = 0; i < mListenerCount; i++) {
+                mListeners[i].onGameEvent(type, a, b, time);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    // Throws away anything waiting
+    public void clear() {
+        mHead = mTail;
+    }
+
+    public int size() {
+        return (int) (mTail - mHead);
+    }
+
+    public long getDropped() {
+        return mDropped;
+    }
+}
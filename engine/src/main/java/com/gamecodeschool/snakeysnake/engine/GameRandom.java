@@ -0,0 +1,50 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.Random;
+
+// The same generator as java.util.Random, so a seed gives the same game it
+// always did, but with its 48 bit state out in the open where a snapshot can
+// save it and put it back
+public class GameRandom extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    // No initializer, Random's constructor sets this through setSeed()
+    private long mState;
+
+    public GameRandom(long seed) {
+        super(seed);
+    }
+
+    @Override
+    public synchronized void setSeed(long seed) {
+        super.setSeed(seed);
+        mState = initialState(seed);
+    }
+
+    @Override
+    protected int next(int bits) {
+        mState = nextState(mState);
+        return (int) (mState >>> (48 - bits));
+    }
+
+    // The state setSeed() starts from, for SnakeBatch which keeps its own
+    static long initialState(long seed) {
+        return (seed ^ MULTIPLIER) & MASK;
+    }
+
+    static long nextState(long state) {
+        return (state * MULTIPLIER + ADDEND) & MASK;
+    }
+
+    public long getState() {
+        return mState;
+    }
+
+    public void setState(long state) {
+        mState = state & MASK;
+    }
+}
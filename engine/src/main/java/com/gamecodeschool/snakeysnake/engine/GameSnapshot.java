@@ -0,0 +1,70 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+// The whole of a game in progress as a few KB of binary: the snake's ring
+// buffer, heading and speed timers, the apples, walls, power-ups, score,
+// clock and RNG state. Restoring it and carrying on plays out exactly as if
+// the game had never stopped. The grid is rebuilt from the rest.
+public final class GameSnapshot {
+    private static final int MAGIC = 0x534E4B53; // "SNKS"
+    // 2 replaced the boost and slow flags with the move scheduler,
+    // 3 moved speed effects to the effect timeline, 4 added the pickup pool,
+    // 5 dropped the free cell order now spawning only depends on the cells
+    private static final int VERSION = 5;
+    // magic, version, width, height, seed
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8;
+
+    private GameSnapshot() {
+    }
+
+    // Bytes write() needs for the engine as it is now
+    public static int sizeOf(GameEngine engine) {
+        return HEADER_SIZE + engine.getState().snapshotSize();
+    }
+
+    // Writes the game at the buffer's position, which needs sizeOf() bytes free
+    public static void write(GameEngine engine, ByteBuffer out) {
+        GameState state = engine.getState();
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt(state.getWidth());
+        out.putInt(state.getHeight());
+        out.putLong(state.getSeed());
+        state.save(out);
+    }
+
+    public static byte[] toByteArray(GameEngine engine) {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(engine));
+        write(engine, buffer);
+        return buffer.array();
+    }
+
+    // Puts the engine back the way write() found it. Throws IllegalArgumentException
+    // if the snapshot is damaged or for a different board, in which case the
+    // engine is left half restored and needs a newGame().
+    public static void read(GameEngine engine, ByteBuffer in) {
+        GameState state = engine.getState();
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a snapshot");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported snapshot version " + version);
+            }
+            int width = in.getInt();
+            int height = in.getInt();
+            if (width != state.getWidth() || height != state.getHeight()) {
+                throw new IllegalArgumentException("Snapshot is for a " + width + "x" + height + " board");
+            }
+            // The seed is only there to say where the game came from, the RNG state is what matters
+            in.getLong();
+            state.restore(in);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Snapshot is cut short or damaged", e);
+        }
+        engine.restored();
+    }
+}
@@ -0,0 +1,132 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// Everything that makes up one game in progress, with no Android types in it
+public class GameState {
+    // The size in segments of the playable area
+    private final int mWidth;
+    private final int mHeight;
+
+    // Which cells hold snake, wall, apple or edge
+    private final OccupancyGrid mGrid;
+    private final SnakeBody mSnake;
+    // Every apple and power-up on the board
+    private final PickupPool mPickups;
+    public static final int MAX_PICKUPS = 16;
+    private final WallLayout mWall;
+    // What can spawn, and the effects of what has been eaten
+    private final PowerUpRegistry mPowerUps;
+    private final EffectTimeline mEffects;
+
+    // Every random choice in the game comes from here
+    private final GameRandom mRandom;
+    private final long mSeed;
+
+    private int mScore;
+    // Milliseconds of play simulated so far
+    private long mTimeMillis;
+
+    public GameState(int width, int height, long seed) {
+        this(width, height, seed, PowerUpRegistry.defaults());
+    }
+
+    public GameState(int width, int height, long seed, PowerUpRegistry powerUps) {
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mSeed = seed;
+        this.mRandom = new GameRandom(seed);
+        mGrid = new OccupancyGrid(width, height);
+        mSnake = new SnakeBody(mGrid);
+        mPickups = new PickupPool(mGrid, MAX_PICKUPS);
+        mWall = new WallLayout(mGrid);
+        mPowerUps = powerUps;
+        mEffects = new EffectTimeline(mSnake.getMover());
+    }
+
+    //Getters
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public OccupancyGrid getGrid() {
+        return mGrid;
+    }
+
+    public SnakeBody getSnake() {
+        return mSnake;
+    }
+
+    public PickupPool getPickups() {
+        return mPickups;
+    }
+
+    public WallLayout getWall() {
+        return mWall;
+    }
+
+    public PowerUpRegistry getPowerUps() {
+        return mPowerUps;
+    }
+
+    public EffectTimeline getEffects() {
+        return mEffects;
+    }
+
+    public Random getRandom() {
+        return mRandom;
+    }
+
+    public long getSeed() {
+        return mSeed;
+    }
+
+    public int getScore() {
+        return mScore;
+    }
+
+    public void setScore(int score) {
+        mScore = score;
+    }
+
+    public long getTimeMillis() {
+        return mTimeMillis;
+    }
+
+    void advanceTime(long millis) {
+        mTimeMillis += millis;
+    }
+
+    // Bytes save() will write
+    int snapshotSize() {
+        return 8 + 8 + 4 + mEffects.snapshotSize()
+                + mSnake.snapshotSize() + mPickups.snapshotSize() + mWall.snapshotSize();
+    }
+
+    // Everything that changes during a game, the grid is rebuilt from it on restore
+    void save(ByteBuffer out) {
+        out.putLong(mRandom.getState());
+        out.putLong(mTimeMillis);
+        out.putInt(mScore);
+        mSnake.save(out);
+        mEffects.save(out);
+        mPickups.save(out);
+        mWall.save(out);
+    }
+
+    void restore(ByteBuffer in) {
+        mRandom.setState(in.getLong());
+        mTimeMillis = in.getLong();
+        mScore = in.getInt();
+        mSnake.restore(in);
+        // After the snake, so it sets the restored mover's effect speed
+        mEffects.restore(in, mPowerUps);
+        mPickups.restore(in, mPowerUps);
+        mWall.restore(in);
+    }
+}
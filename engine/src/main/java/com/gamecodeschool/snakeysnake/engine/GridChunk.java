@@ -0,0 +1,66 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+// One SIZE x SIZE square of an OccupancyGrid. Chunks are only made once
+// something is put in them, so a huge board that is mostly empty costs
+// memory for the parts that are in use and nothing for the rest.
+final class GridChunk {
+    static final int SHIFT = 5;
+    static final int SIZE = 1 << SHIFT;
+    static final int MASK = SIZE - 1;
+    static final int AREA = SIZE * SIZE;
+
+    // The grid flags of each cell, row by row
+    final byte[] mCells = new byte[AREA];
+    // One int per row with a bit set for every empty cell, for picking the n'th one
+    private final int[] mFreeRows = new int[SIZE];
+    // Pool slot plus one of the pickup in each cell, made on the first pickup
+    short[] mPickups;
+
+    // width and height are how much of the chunk is on the board
+    GridChunk(int width, int height) {
+        int row = width == SIZE ? -1 : (1 << width) - 1;
+        for (int y = 0; y < height; y++) {
+            mFreeRows[y] = row;
+        }
+    }
+
+    // Adds a flag, returns true if the cell was empty before
+    boolean set(int local, int flag) {
+        boolean wasEmpty = mCells[local] == OccupancyGrid.EMPTY;
+        mCells[local] |= flag;
+        if (wasEmpty) {
+            mFreeRows[local >> SHIFT] &= ~(1 << (local & MASK));
+        }
+        return wasEmpty;
+    }
+
+    // Removes a flag, returns true if that left the cell empty
+    boolean clear(int local, int flag) {
+        if ((mCells[local] & flag) == 0) {
+            return false;
+        }
+        mCells[local] &= ~flag;
+        if (mCells[local] == OccupancyGrid.EMPTY) {
+            mFreeRows[local >> SHIFT] |= 1 << (local & MASK);
+            return true;
+        }
+        return false;
+    }
+
+    // The local index of the n'th empty cell counting row by row, n has to be
+    // less than the number of empty cells
+    int nthFree(int n) {
+        int y = 0;
+        int count = Integer.bitCount(mFreeRows[0]);
+        while (n >= count) {
+            n -= count;
+            count = Integer.bitCount(mFreeRows[++y]);
+        }
+        int row = mFreeRows[y];
+        for (int i = 0; i < n; i++) {
+            // Drop the lowest set bit
+            row &= row - 1;
+        }
+        return (y << SHIFT) | Integer.numberOfTrailingZeros(row);
+    }
+}
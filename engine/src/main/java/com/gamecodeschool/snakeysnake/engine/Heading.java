@@ -0,0 +1,30 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+// For tracking movement Heading, in clockwise order
+public enum Heading {
+    UP(0, -1), RIGHT(1, 0), DOWN(0, 1), LEFT(-1, 0);
+
+    // How far one step in this heading moves on the grid
+    public final int dx;
+    public final int dy;
+
+    private static final Heading[] VALUES = values();
+
+    Heading(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    // values() makes a new array every call, this doesn't
+    public static Heading fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public Heading rotateClockwise() {
+        return VALUES[(ordinal() + 1) % 4];
+    }
+
+    public Heading rotateCounterClockwise() {
+        return VALUES[(ordinal() - 1 + 4) % 4];
+    }
+}
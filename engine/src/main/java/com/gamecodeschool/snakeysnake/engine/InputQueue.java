@@ -0,0 +1,73 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands timestamped input commands from one producer thread (the UI) to one
+// consumer thread (the game loop) without locks. Each entry is a command and
+// the time it happened packed into one long, so nothing is allocated per input.
+public class InputQueue {
+    public static final int EMPTY = -1;
+    // Commands are small ints, the time goes in the bits above them
+    private static final int COMMAND_BITS = 8;
+    private static final long COMMAND_MASK = (1L << COMMAND_BITS) - 1;
+
+    private final long[] mEntries;
+    private final int mMask;
+    // Next slot the consumer reads, only ever advanced by the consumer
+    private final AtomicLong mHead = new AtomicLong();
+    // Next slot the producer writes, only ever advanced by the producer
+    private final AtomicLong mTail = new AtomicLong();
+
+    // capacity is rounded up to a power of two, with 2 the smallest
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Bad input queue capacity " + capacity);
+        }
+        int size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        mEntries = new long[size];
+        mMask = size - 1;
+    }
+
+    // Producer side. Returns false if the consumer has fallen a whole buffer behind.
+    public boolean offer(int command, long timeMillis) {
+        if (command < 0 || command > COMMAND_MASK) {
+            throw new IllegalArgumentException("Command out of range: " + command);
+        }
+        long tail = mTail.get();
+        if (tail - mHead.get() == mEntries.length) {
+            return false;
+        }
+        mEntries[(int) tail & mMask] = (timeMillis << COMMAND_BITS) | command;
+        // Publishes the entry, the consumer sees it once it sees the new tail
+        mTail.lazySet(tail + 1);
+        return true;
+    }
+
+    // Consumer side. The oldest command, or EMPTY if there isn't one.
+    public int peek() {
+        long head = mHead.get();
+        if (head == mTail.get()) {
+            return EMPTY;
+        }
+        return (int) (mEntries[(int) head & mMask] & COMMAND_MASK);
+    }
+
+    // Consumer side. When the command from peek() happened.
+    public long peekTime() {
+        return mEntries[(int) mHead.get() & mMask] >>> COMMAND_BITS;
+    }
+
+    // Consumer side. Drops the command peek() returned.
+    public void remove() {
+        long head = mHead.get();
+        if (head != mTail.get()) {
+            // Frees the slot, the producer sees it once it sees the new head
+            mHead.lazySet(head + 1);
+        }
+    }
+
+    // Safe from either side, but only a snapshot
+    public int size() {
+        return (int) (mTail.get() - mHead.get());
+    }
+}
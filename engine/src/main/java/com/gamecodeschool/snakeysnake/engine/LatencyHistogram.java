@@ -0,0 +1,99 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Counts values (usually nanoseconds) into log-linear buckets: every power of
+// two is split into 16 buckets, so anything read back is within about 6% of
+// what was recorded. Recording is a couple of atomic adds with no locks and no
+// allocation, and any thread can read percentiles while another records.
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values of 2^41 and up (about 36 minutes of nanoseconds) land in the last bucket
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong mTotal = new AtomicLong();
+    private final AtomicLong mSum = new AtomicLong();
+    private final AtomicLong mMax = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        mCounts.incrementAndGet(bucketOf(value));
+        mTotal.incrementAndGet();
+        mSum.addAndGet(value);
+        long max = mMax.get();
+        while (value > max && !mMax.compareAndSet(max, value)) {
+            max = mMax.get();
+        }
+    }
+
+    public long getCount() {
+        return mTotal.get();
+    }
+
+    public long getMax() {
+        return mMax.get();
+    }
+
+    public long getMean() {
+        long count = mTotal.get();
+        return count == 0 ? 0 : mSum.get() / count;
+    }
+
+    // The value that percentile (0 to 100) of recordings were at or below,
+    // rounded up to the top of its bucket and never more than the max
+    public long getPercentile(double percentile) {
+        long count = mTotal.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += mCounts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), mMax.get());
+            }
+        }
+        // Recordings landed after we read the total, the max is as good as anything
+        return mMax.get();
+    }
+
+    // Not atomic with record(), a value recorded at the same time may be half kept
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            mCounts.set(i, 0);
+        }
+        mTotal.set(0);
+        mSum.set(0);
+        mMax.set(0);
+    }
+
+    // The first 32 values get a bucket each, after that each power of two
+    // shares 16 buckets between its values
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_BITS) {
+            return BUCKETS - 1;
+        }
+        int shift = exponent - SUB_BITS;
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    static long highestValueIn(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long mantissa = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
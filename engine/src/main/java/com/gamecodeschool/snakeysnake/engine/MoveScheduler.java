@@ -0,0 +1,89 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+
+// Decides how many cells something moves each tick. Speed is a fixed point
+// number of cells per tick (ONE is one cell), so half speed moves every other
+// tick and one and a half alternates between one and two cells. The leftover
+// fraction carries over to the next tick. Timed effects on top come from
+// EffectTimeline. It's all integer maths so replays come out the same everywhere.
+public class MoveScheduler {
+    public static final int ONE = 256;
+    // However effects stack, never stop dead and never skip so far the
+    // per-cell collision checks take over the tick
+    public static final int MIN_SPEED = ONE / 8;
+    public static final int MAX_SPEED = 4 * ONE;
+
+    private int mBaseSpeed = ONE;
+    // What the running effects multiply the base speed by, set by EffectTimeline
+    private int mEffectSpeed = ONE;
+    // Fraction of a cell carried into the next tick, always under ONE
+    private int mProgress;
+    // Base speed with the effects applied
+    private int mSpeed = ONE;
+
+    // Starts the next move from a whole cell
+    public void reset() {
+        mProgress = 0;
+    }
+
+    public void setBaseSpeed(int speed) {
+        mBaseSpeed = speed;
+        updateSpeed();
+    }
+
+    void setEffectSpeed(int speed) {
+        mEffectSpeed = speed;
+        updateSpeed();
+    }
+
+    // How many cells to move this tick
+    public int cellsThisTick() {
+        mProgress += mSpeed;
+        int cells = mProgress / ONE;
+        mProgress -= cells * ONE;
+        return cells;
+    }
+
+    // What cellsThisTick() will say next, without using up the progress
+    public int peekCellsThisTick() {
+        return (mProgress + mSpeed) / ONE;
+    }
+
+    private void updateSpeed() {
+        long speed = (long) mBaseSpeed * mEffectSpeed / ONE;
+        mSpeed = (int) Math.max(MIN_SPEED, Math.min(MAX_SPEED, speed));
+    }
+
+    // Current speed in ONEs of a cell per tick
+    public int getSpeed() {
+        return mSpeed;
+    }
+
+    public boolean isFaster() {
+        return mSpeed > mBaseSpeed;
+    }
+
+    public boolean isSlower() {
+        return mSpeed < mBaseSpeed;
+    }
+
+    // The effect speed isn't saved, EffectTimeline sets it again on restore
+    int snapshotSize() {
+        return 4 + 4;
+    }
+
+    void save(ByteBuffer out) {
+        out.putInt(mBaseSpeed);
+        out.putInt(mProgress);
+    }
+
+    void restore(ByteBuffer in) {
+        mBaseSpeed = in.getInt();
+        mProgress = in.getInt();
+        if (mProgress < 0 || mProgress >= ONE) {
+            throw new IllegalArgumentException("Bad move scheduler state");
+        }
+        updateSpeed();
+    }
+}
@@ -0,0 +1,243 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.Random;
+
+// One byte per grid cell saying what is in it, shared by the snake, walls and apples
+// so any collision check is a single array lookup. The cells are stored in
+// GridChunks that are only made once something is put in them, so a board far
+// bigger than the screen costs memory for the parts in use and nothing else.
+public class OccupancyGrid {
+    // Flags that can be combined in a cell
+    public static final int EMPTY = 0;
+    public static final int SNAKE = 1;
+    public static final int WALL = 2;
+    public static final int APPLE = 4;
+    // The outer ring of the board, touching it ends the game
+    public static final int EDGE = 8;
+
+    // Cells are packed into 16 bits a side by SnakeBody.cellOf()
+    public static final int MAX_SIZE = Short.MAX_VALUE;
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mChunksWide;
+    private final int mChunksHigh;
+    // Row by row, null where nothing has been put yet
+    private final GridChunk[] mChunks;
+    // Empty cells in each chunk and in each row of chunks, kept in step by
+    // set() and clear() so a random empty cell can be found without a scan
+    private final int[] mChunkFree;
+    private final int[] mChunkRowFree;
+    private int mFreeCount;
+
+    public OccupancyGrid(int width, int height) {
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Bad board size " + width + "x" + height);
+        }
+        this.mWidth = width;
+        this.mHeight = height;
+        this.mChunksWide = (width + GridChunk.MASK) >> GridChunk.SHIFT;
+        this.mChunksHigh = (height + GridChunk.MASK) >> GridChunk.SHIFT;
+        this.mChunks = new GridChunk[mChunksWide * mChunksHigh];
+        this.mChunkFree = new int[mChunks.length];
+        this.mChunkRowFree = new int[mChunksHigh];
+        for (int cy = 0; cy < mChunksHigh; cy++) {
+            for (int cx = 0; cx < mChunksWide; cx++) {
+                int free = chunkWidth(cx) * chunkHeight(cy);
+                mChunkFree[cy * mChunksWide + cx] = free;
+                mChunkRowFree[cy] += free;
+            }
+        }
+        mFreeCount = width * height;
+        markEdges();
+    }
+
+    private void markEdges() {
+        for (int x = 0; x < mWidth; x++) {
+            set(x, 0, EDGE);
+            set(x, mHeight - 1, EDGE);
+        }
+        for (int y = 0; y < mHeight; y++) {
+            set(0, y, EDGE);
+            set(mWidth - 1, y, EDGE);
+        }
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    // Is the cell on the board at all?
+    public boolean contains(int x, int y) {
+        return x >= 0 && x < mWidth && y >= 0 && y < mHeight;
+    }
+
+    // Everything in a cell, cells off the board count as edge
+    public int get(int x, int y) {
+        if (!contains(x, y)) {
+            return EDGE;
+        }
+        GridChunk chunk = mChunks[chunkIndex(x, y)];
+        return chunk == null ? EMPTY : chunk.mCells[localIndex(x, y)];
+    }
+
+    // Does the cell hold any of the given flags?
+    public boolean has(int x, int y, int flags) {
+        return (get(x, y) & flags) != 0;
+    }
+
+    // Cells off the board are ignored
+    public void set(int x, int y, int flag) {
+        if (contains(x, y)) {
+            int index = chunkIndex(x, y);
+            GridChunk chunk = mChunks[index];
+            if (chunk == null) {
+                chunk = makeChunk(index);
+            }
+            if (chunk.set(localIndex(x, y), flag)) {
+                changeFree(index, -1);
+            }
+        }
+    }
+
+    public void clear(int x, int y, int flag) {
+        if (contains(x, y)) {
+            int index = chunkIndex(x, y);
+            GridChunk chunk = mChunks[index];
+            if (chunk != null && chunk.clear(localIndex(x, y), flag)) {
+                changeFree(index, 1);
+            }
+        }
+    }
+
+    // Removes a flag from every cell, only looks in chunks that have been used
+    public void clearAll(int flag) {
+        for (int index = 0; index < mChunks.length; index++) {
+            GridChunk chunk = mChunks[index];
+            if (chunk == null) {
+                continue;
+            }
+            for (int local = 0; local < GridChunk.AREA; local++) {
+                if ((chunk.mCells[local] & flag) != 0 && chunk.clear(local, flag)) {
+                    changeFree(index, 1);
+                }
+            }
+        }
+    }
+
+    // Puts a pickup in a cell, marking it APPLE and remembering which slot it is
+    public void setPickup(int x, int y, int slot) {
+        if (contains(x, y)) {
+            set(x, y, APPLE);
+            GridChunk chunk = mChunks[chunkIndex(x, y)];
+            if (chunk.mPickups == null) {
+                chunk.mPickups = new short[GridChunk.AREA];
+            }
+            chunk.mPickups[localIndex(x, y)] = (short) (slot + 1);
+        }
+    }
+
+    public void clearPickup(int x, int y) {
+        if (contains(x, y)) {
+            GridChunk chunk = mChunks[chunkIndex(x, y)];
+            if (chunk != null && chunk.mPickups != null) {
+                chunk.mPickups[localIndex(x, y)] = 0;
+            }
+            clear(x, y, APPLE);
+        }
+    }
+
+    // The pool slot of the pickup in a cell, or -1 if there isn't one
+    public int pickupAt(int x, int y) {
+        if (!contains(x, y)) {
+            return -1;
+        }
+        GridChunk chunk = mChunks[chunkIndex(x, y)];
+        if (chunk == null || chunk.mPickups == null) {
+            return -1;
+        }
+        return chunk.mPickups[localIndex(x, y)] - 1;
+    }
+
+    // How many cells have nothing in them
+    public int getFreeCount() {
+        return mFreeCount;
+    }
+
+    // A uniformly random empty cell as y * width + x, or -1 if there is none.
+    // Walks the rows of chunks, then the chunks in a row, then the cells in a
+    // chunk, so it only depends on what is in the cells and not on the order
+    // they were filled in.
+    public int randomFreeIndex(Random random) {
+        if (mFreeCount == 0) {
+            return -1;
+        }
+        int n = random.nextInt(mFreeCount);
+        int cy = 0;
+        while (n >= mChunkRowFree[cy]) {
+            n -= mChunkRowFree[cy];
+            cy++;
+        }
+        int index = cy * mChunksWide;
+        while (n >= mChunkFree[index]) {
+            n -= mChunkFree[index];
+            index++;
+        }
+        int cx = index - cy * mChunksWide;
+        GridChunk chunk = mChunks[index];
+        int localX;
+        int localY;
+        if (chunk == null) {
+            // Every cell of a chunk nobody has touched is empty
+            int width = chunkWidth(cx);
+            localX = n % width;
+            localY = n / width;
+        } else {
+            int local = chunk.nthFree(n);
+            localX = local & GridChunk.MASK;
+            localY = local >> GridChunk.SHIFT;
+        }
+        return ((cy << GridChunk.SHIFT) + localY) * mWidth + (cx << GridChunk.SHIFT) + localX;
+    }
+
+    public int indexX(int index) {
+        return index % mWidth;
+    }
+
+    public int indexY(int index) {
+        return index / mWidth;
+    }
+
+    private int chunkIndex(int x, int y) {
+        return (y >> GridChunk.SHIFT) * mChunksWide + (x >> GridChunk.SHIFT);
+    }
+
+    private static int localIndex(int x, int y) {
+        return ((y & GridChunk.MASK) << GridChunk.SHIFT) | (x & GridChunk.MASK);
+    }
+
+    private GridChunk makeChunk(int index) {
+        GridChunk chunk = new GridChunk(chunkWidth(index % mChunksWide), chunkHeight(index / mChunksWide));
+        mChunks[index] = chunk;
+        return chunk;
+    }
+
+    private void changeFree(int index, int change) {
+        mChunkFree[index] += change;
+        mChunkRowFree[index / mChunksWide] += change;
+        mFreeCount += change;
+    }
+
+    // How much of a chunk is on the board, only the last column and row are short
+    private int chunkWidth(int cx) {
+        return Math.min(GridChunk.SIZE, mWidth - (cx << GridChunk.SHIFT));
+    }
+
+    private int chunkHeight(int cy) {
+        return Math.min(GridChunk.SIZE, mHeight - (cy << GridChunk.SHIFT));
+    }
+}
@@ -0,0 +1,107 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+
+// An apple on the board, with no drawing attached
+public class Pickup {
+    private final OccupancyGrid mGrid;
+    // Where it sits in its PickupPool, so the grid can say which pickup is in a cell
+    private final int mSlot;
+
+    // Hidden off the board until the first spawn
+    private int x = -10;
+    private int y = 0;
+    private boolean active = false;
+    private PowerUpType type = PowerUpType.APPLE;
+
+    // When the apple appeared, on the engine clock
+    private long spawnTime;
+    // How long an uneaten apple stays put by default, see PowerUpRegistry
+    public static final long MAX_TIME = 8000;
+
+    // On its own, outside a pool
+    public Pickup(OccupancyGrid grid) {
+        this(grid, 0);
+    }
+
+    Pickup(OccupancyGrid grid, int slot) {
+        this.mGrid = grid;
+        this.mSlot = slot;
+    }
+
+    // Places the apple in a cell and with a type picked by SpawnUtil
+    public void spawn(int x, int y, PowerUpType type, long now) {
+        if (active) {
+            mGrid.clearPickup(this.x, this.y);
+        }
+        this.x = x;
+        this.y = y;
+        mGrid.setPickup(x, y, mSlot);
+        spawnTime = now;
+        active = true;
+        this.type = type;
+    }
+
+    // Takes it off the board
+    void despawn() {
+        if (active) {
+            mGrid.clearPickup(x, y);
+            active = false;
+        }
+    }
+
+    int getSlot() {
+        return mSlot;
+    }
+
+    static final int SNAPSHOT_SIZE = 4 + 4 + 1 + 1 + 8;
+
+    void save(ByteBuffer out) {
+        out.putInt(x);
+        out.putInt(y);
+        out.put((byte) (active ? 1 : 0));
+        out.put((byte) type.getId());
+        out.putLong(spawnTime);
+    }
+
+    void restore(ByteBuffer in, PowerUpRegistry registry) {
+        despawn();
+        x = in.getInt();
+        y = in.getInt();
+        active = in.get() != 0;
+        type = registry.byId(in.get());
+        if (type == null) {
+            throw new IllegalArgumentException("Snapshot has an unknown pickup type");
+        }
+        spawnTime = in.getLong();
+        if (active) {
+            mGrid.setPickup(x, y, mSlot);
+        }
+    }
+
+    public boolean needsRespawn(long now) {
+        return needsRespawn(now, MAX_TIME);
+    }
+
+    // Has it sat uneaten for longer than lifetime?
+    public boolean needsRespawn(long now, long lifetime) {
+        return active && now - spawnTime > lifetime;
+    }
+
+    //Getters
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public PowerUpType getType() {
+        return type;
+    }
+}
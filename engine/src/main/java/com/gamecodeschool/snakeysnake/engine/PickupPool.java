@@ -0,0 +1,166 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+
+// Every pickup a game can have on the board at once, allocated up front.
+// Spare ones wait on a free list, the ones in play are kept in a dense list
+// for walking over, and the grid remembers which one is in each cell so
+// finding what the head landed on is one lookup however many are out.
+public class PickupPool {
+    private final OccupancyGrid mGrid;
+    private final Pickup[] mSlots;
+    // Slots not in play, used as a stack
+    private final int[] mFree;
+    private int mFreeCount;
+    // Slots in play, and where each one sits in mActive
+    private final int[] mActive;
+    private final int[] mActivePositions;
+    private int mActiveCount;
+    // How many the engine keeps on the board
+    private int mTarget = 1;
+
+    public PickupPool(OccupancyGrid grid, int capacity) {
+        mGrid = grid;
+        mSlots = new Pickup[capacity];
+        mFree = new int[capacity];
+        mActive = new int[capacity];
+        mActivePositions = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            mSlots[i] = new Pickup(grid, i);
+        }
+        clear();
+    }
+
+    // Takes a spare pickup for the caller to spawn, or null if they're all out
+    public Pickup obtain() {
+        if (mFreeCount == 0) {
+            return null;
+        }
+        int slot = mFree[--mFreeCount];
+        mActivePositions[slot] = mActiveCount;
+        mActive[mActiveCount++] = slot;
+        return mSlots[slot];
+    }
+
+    // Takes a pickup off the board and puts it back on the free list
+    public void release(Pickup pickup) {
+        int slot = pickup.getSlot();
+        int position = mActivePositions[slot];
+        if (position < 0) {
+            return;
+        }
+        pickup.despawn();
+        // Swap the last one in play into the gap
+        int last = mActive[--mActiveCount];
+        mActive[position] = last;
+        mActivePositions[last] = position;
+        mActivePositions[slot] = -1;
+        mFree[mFreeCount++] = slot;
+    }
+
+    // Takes everything off the board
+    public void clear() {
+        for (int i = 0; i < mActiveCount; i++) {
+            mSlots[mActive[i]].despawn();
+        }
+        mActiveCount = 0;
+        // Filled backwards so slot 0 comes out first
+        mFreeCount = mSlots.length;
+        for (int i = 0; i < mSlots.length; i++) {
+            mFree[i] = mSlots.length - 1 - i;
+            mActivePositions[i] = -1;
+        }
+    }
+
+    // The pickup in a cell, or null
+    public Pickup at(int x, int y) {
+        if (!mGrid.has(x, y, OccupancyGrid.APPLE)) {
+            return null;
+        }
+        int slot = mGrid.pickupAt(x, y);
+        return slot < 0 ? null : mSlots[slot];
+    }
+
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    // The i'th pickup in play, the order changes as they come and go
+    public Pickup getActive(int i) {
+        return mSlots[mActive[i]];
+    }
+
+    public int getCapacity() {
+        return mSlots.length;
+    }
+
+    // Slots never move, so renderers can keep per-slot state
+    public Pickup getSlot(int i) {
+        return mSlots[i];
+    }
+
+    public int getTarget() {
+        return mTarget;
+    }
+
+    void setTarget(int target) {
+        mTarget = Math.max(0, Math.min(mSlots.length, target));
+    }
+
+    int snapshotSize() {
+        return 4 + 4 + 4 * mFreeCount + 4 + 4 * mActiveCount + mSlots.length * Pickup.SNAPSHOT_SIZE;
+    }
+
+    // Both lists go in as they are, their order decides what happens next
+    void save(ByteBuffer out) {
+        out.putInt(mTarget);
+        out.putInt(mFreeCount);
+        for (int i = 0; i < mFreeCount; i++) {
+            out.putInt(mFree[i]);
+        }
+        out.putInt(mActiveCount);
+        for (int i = 0; i < mActiveCount; i++) {
+            out.putInt(mActive[i]);
+        }
+        for (Pickup slot : mSlots) {
+            slot.save(out);
+        }
+    }
+
+    void restore(ByteBuffer in, PowerUpRegistry registry) {
+        clear();
+        int target = in.getInt();
+        int freeCount = in.getInt();
+        if (freeCount < 0 || freeCount > mSlots.length) {
+            throw new IllegalArgumentException("Bad free pickup count " + freeCount);
+        }
+        for (int i = 0; i < freeCount; i++) {
+            mFree[i] = checkSlot(in.getInt());
+        }
+        int activeCount = in.getInt();
+        if (activeCount != mSlots.length - freeCount) {
+            throw new IllegalArgumentException("Snapshot is for a pool of a different size");
+        }
+        for (int i = 0; i < activeCount; i++) {
+            int slot = checkSlot(in.getInt());
+            if (mActivePositions[slot] >= 0) {
+                throw new IllegalArgumentException("Pickup slot " + slot + " is in play twice");
+            }
+            mActive[i] = slot;
+            mActivePositions[slot] = i;
+        }
+        mFreeCount = freeCount;
+        mActiveCount = activeCount;
+        mTarget = target;
+        for (Pickup slot : mSlots) {
+            slot.restore(in, registry);
+        }
+    }
+
+    private int checkSlot(int slot) {
+        if (slot < 0 || slot >= mSlots.length) {
+            throw new IllegalArgumentException("Bad pickup slot " + slot);
+        }
+        return slot;
+    }
+}
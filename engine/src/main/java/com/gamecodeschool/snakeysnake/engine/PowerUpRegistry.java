@@ -0,0 +1,82 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+// The types of pickup a game can spawn, with their weights
+public class PowerUpRegistry {
+    private final ArrayList<PowerUpType> mTypes = new ArrayList<>();
+    // Indexed by id, null where no type has that id
+    private final PowerUpType[] mById = new PowerUpType[PowerUpType.MAX_ID + 1];
+    private int mTotalWeight;
+    // Built on the first pick after the types change
+    private AliasTable mSpawnTable;
+    // How long a pickup sits uneaten before it moves somewhere else
+    private long mPickupLifetimeMillis = Pickup.MAX_TIME;
+
+    // Apple, golden apple and poison apple, what the game has always had
+    public static PowerUpRegistry defaults() {
+        PowerUpRegistry registry = new PowerUpRegistry();
+        registry.register(PowerUpType.APPLE);
+        registry.register(PowerUpType.GOLDEN_APPLE);
+        registry.register(PowerUpType.POISON_APPLE);
+        return registry;
+    }
+
+    public PowerUpRegistry register(PowerUpType type) {
+        if (mById[type.getId()] != null) {
+            throw new IllegalArgumentException("Power-up id " + type.getId() + " is already "
+                    + mById[type.getId()]);
+        }
+        mTypes.add(type);
+        mById[type.getId()] = type;
+        mTotalWeight += type.getSpawnWeight();
+        mSpawnTable = null;
+        return this;
+    }
+
+    public int size() {
+        return mTypes.size();
+    }
+
+    // Types in the order they were registered
+    public PowerUpType get(int index) {
+        return mTypes.get(index);
+    }
+
+    // The type with this id, or null if there isn't one
+    public PowerUpType byId(int id) {
+        return id >= 0 && id < mById.length ? mById[id] : null;
+    }
+
+    public int getTotalWeight() {
+        return mTotalWeight;
+    }
+
+    public long getPickupLifetimeMillis() {
+        return mPickupLifetimeMillis;
+    }
+
+    public PowerUpRegistry setPickupLifetimeMillis(long lifetimeMillis) {
+        if (lifetimeMillis <= 0) {
+            throw new IllegalArgumentException("Pickup lifetime must be positive");
+        }
+        mPickupLifetimeMillis = lifetimeMillis;
+        return this;
+    }
+
+    // A type picked at random by spawn weight, in constant time however many types there are
+    public PowerUpType pick(Random random) {
+        if (mSpawnTable == null) {
+            if (mTotalWeight == 0) {
+                throw new IllegalStateException("No power-up has a spawn weight");
+            }
+            int[] weights = new int[mTypes.size()];
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] = mTypes.get(i).getSpawnWeight();
+            }
+            mSpawnTable = new AliasTable(weights);
+        }
+        return mTypes.get(mSpawnTable.pick(random));
+    }
+}
@@ -0,0 +1,96 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+// One kind of thing that can spawn on the board and what eating it does.
+// Everything about a type is data, so adding one is a new instance
+// registered with a PowerUpRegistry rather than new code in the engine.
+public final class PowerUpType {
+    // Plain apple, one point and one segment
+    public static final PowerUpType APPLE =
+            new PowerUpType(0, "apple", 70, 0, MoveScheduler.ONE, 1, 1, 1);
+    // Two points and double speed for 10 seconds
+    public static final PowerUpType GOLDEN_APPLE =
+            new PowerUpType(1, "golden apple", 15, 10000, 2 * MoveScheduler.ONE, 1, 2, 1);
+    // No points and half speed for 10 seconds
+    public static final PowerUpType POISON_APPLE =
+            new PowerUpType(2, "poison apple", 15, 10000, MoveScheduler.ONE / 2, 1, 0, 1);
+
+    // Ids go in snapshots and renderers pack them into 7 bits
+    public static final int MAX_ID = 127;
+
+    private final int mId;
+    private final String mName;
+    private final int mSpawnWeight;
+    private final long mDurationMillis;
+    private final int mSpeed;
+    private final int mScoreMultiplier;
+    private final int mPoints;
+    private final int mGrowth;
+
+    // id: unique within a registry, 0 to MAX_ID
+    // spawnWeight: how likely it is to spawn compared to the other types
+    // durationMillis: how long speed and scoreMultiplier last, 0 for no timed effect
+    // speed: multiplies the snake's speed while it lasts, MoveScheduler.ONE for no change
+    // scoreMultiplier: multiplies the points for everything eaten while it lasts
+    // points: added to the score when eaten, before any multiplier
+    // growth: segments the snake grows by when it's eaten
+    public PowerUpType(int id, String name, int spawnWeight, long durationMillis,
+                       int speed, int scoreMultiplier, int points, int growth) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Power-up id out of range: " + id);
+        }
+        if (spawnWeight < 0 || durationMillis < 0 || speed <= 0 || scoreMultiplier < 0 || growth < 0) {
+            throw new IllegalArgumentException("Bad power-up settings for " + name);
+        }
+        this.mId = id;
+        this.mName = name;
+        this.mSpawnWeight = spawnWeight;
+        this.mDurationMillis = durationMillis;
+        this.mSpeed = speed;
+        this.mScoreMultiplier = scoreMultiplier;
+        this.mPoints = points;
+        this.mGrowth = growth;
+    }
+
+    //Getters
+    public int getId() {
+        return mId;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getSpawnWeight() {
+        return mSpawnWeight;
+    }
+
+    public long getDurationMillis() {
+        return mDurationMillis;
+    }
+
+    public int getSpeed() {
+        return mSpeed;
+    }
+
+    public int getScoreMultiplier() {
+        return mScoreMultiplier;
+    }
+
+    public int getPoints() {
+        return mPoints;
+    }
+
+    public int getGrowth() {
+        return mGrowth;
+    }
+
+    // Does eating it start something on the effect timeline?
+    public boolean hasTimedEffect() {
+        return mDurationMillis > 0 && (mSpeed != MoveScheduler.ONE || mScoreMultiplier != 1);
+    }
+
+    @Override
+    public String toString() {
+        return mName;
+    }
+}
@@ -0,0 +1,211 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+// Runs a session recorded by ReplayRecorder again on a fresh GameEngine,
+// as fast as the engine can tick. See ReplayRecorder for the format.
+public class ReplayPlayer {
+    private final byte[] mData;
+    private int mPosition;
+
+    private final long mSeed;
+    private final GameEngine mEngine;
+
+    private long mTick;
+    // Tick and op of the next record, read ahead of time
+    private long mNextTick;
+    private int mNextOp;
+    private boolean mEnded;
+    private int mDeaths;
+
+    public ReplayPlayer(byte[] data) {
+        mData = data;
+        if (readInt() != ReplayRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a replay");
+        }
+        long version = readVarint();
+        // Older versions ran the engine differently, they can't be played back
+        if (version != ReplayRecorder.VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version " + version);
+        }
+        mSeed = ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+        int width = (int) readVarint();
+        int height = (int) readVarint();
+        long tickMillis = readVarint();
+        mEngine = new GameEngine(width, height, mSeed, readPowerUps());
+        mEngine.setTickMillis(tickMillis);
+        int snapshotLength = (int) readVarint();
+        if (snapshotLength > mData.length - mPosition) {
+            throw new IllegalArgumentException("Replay is cut short");
+        }
+        if (snapshotLength > 0) {
+            GameSnapshot.read(mEngine, ByteBuffer.wrap(mData, mPosition, snapshotLength));
+            mPosition += snapshotLength;
+        }
+        readRecord();
+    }
+
+    public GameEngine getEngine() {
+        return mEngine;
+    }
+
+    public long getSeed() {
+        return mSeed;
+    }
+
+    // Ticks played so far
+    public long getTick() {
+        return mTick;
+    }
+
+    public int getDeaths() {
+        return mDeaths;
+    }
+
+    public boolean isEnded() {
+        return mEnded && mNextTick <= mTick;
+    }
+
+    // Applies the inputs for the next tick and runs it. Returns the
+    // engine's EVENT_ bits, or -1 once the recording has run out.
+    public int step() {
+        while (!mEnded && mNextTick == mTick) {
+            apply(mNextOp);
+            readRecord();
+        }
+        if (isEnded()) {
+            return -1;
+        }
+        int events = mEngine.tick();
+        mTick++;
+        if ((events & GameEngine.EVENT_DIED) != 0) {
+            mDeaths++;
+        }
+        return events;
+    }
+
+    // Plays to the end of the recording, returns how many ticks that was
+    public long playToEnd() {
+        while (step() >= 0) {
+            // keep going
+        }
+        return mTick;
+    }
+
+    // Plays until the snake dies or the recording ends, returns false for the end
+    public boolean playToDeath() {
+        int events;
+        do {
+            events = step();
+        } while (events >= 0 && (events & GameEngine.EVENT_DIED) == 0);
+        return events >= 0;
+    }
+
+    private void apply(int op) {
+        switch (op) {
+            case ReplayRecorder.OP_TURN_CLOCKWISE:
+                mEngine.turnClockwise();
+                break;
+            case ReplayRecorder.OP_TURN_COUNTER_CLOCKWISE:
+                mEngine.turnCounterClockwise();
+                break;
+            case ReplayRecorder.OP_NEW_GAME:
+                mEngine.newGame();
+                break;
+            case ReplayRecorder.OP_NEW_GAME_WITH_SCORE:
+                mEngine.newGame((int) unzigzag(readVarint()));
+                break;
+            case ReplayRecorder.OP_TICK_MILLIS:
+                mEngine.setTickMillis(readVarint());
+                break;
+            case ReplayRecorder.OP_PICKUP_COUNT:
+                mEngine.setPickupCount((int) readVarint());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown replay op " + op + " at byte " + mPosition);
+        }
+    }
+
+    // The registry the recording engine had, so spawns and effects come out the same
+    private PowerUpRegistry readPowerUps() {
+        PowerUpRegistry powerUps = new PowerUpRegistry().setPickupLifetimeMillis(readVarint());
+        int count = (int) readVarint();
+        for (int i = 0; i < count; i++) {
+            int id = (int) readVarint();
+            int nameLength = (int) readVarint();
+            if (nameLength > mData.length - mPosition) {
+                throw new IllegalArgumentException("Replay is cut short");
+            }
+            String name = new String(mData, mPosition, nameLength, StandardCharsets.UTF_8);
+            mPosition += nameLength;
+            int spawnWeight = (int) readVarint();
+            long durationMillis = readVarint();
+            int speed = (int) readVarint();
+            int scoreMultiplier = (int) readVarint();
+            int points = (int) unzigzag(readVarint());
+            int growth = (int) readVarint();
+            powerUps.register(new PowerUpType(id, name, spawnWeight, durationMillis, speed,
+                    scoreMultiplier, points, growth));
+        }
+        return powerUps;
+    }
+
+    private void readRecord() {
+        long record = readVarint();
+        mNextTick += record >>> ReplayRecorder.OP_BITS;
+        mNextOp = (int) (record & ((1 << ReplayRecorder.OP_BITS) - 1));
+        if (mNextOp == ReplayRecorder.OP_END) {
+            mEnded = true;
+        } else if (mNextOp > ReplayRecorder.OP_PICKUP_COUNT) {
+            // Caught here rather than when it's due, so a bad file fails straight away
+            throw new IllegalArgumentException("Unknown replay op " + mNextOp + " at byte " + mPosition);
+        }
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private int readInt() {
+        return (readByte() << 24) | (readByte() << 16) | (readByte() << 8) | readByte();
+    }
+
+    private long readVarint() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Bad varint at byte " + mPosition);
+    }
+
+    private int readByte() {
+        if (mPosition >= mData.length) {
+            throw new IllegalArgumentException("Replay is cut short");
+        }
+        return mData[mPosition++] & 0xFF;
+    }
+
+    // Plays a replay file headlessly and prints what happened:
+    //   java -cp engine.jar com.gamecodeschool.snakeysnake.engine.ReplayPlayer last_death.replay
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("usage: ReplayPlayer <replay file>");
+            System.exit(2);
+        }
+        ReplayPlayer player = new ReplayPlayer(Files.readAllBytes(Paths.get(args[0])));
+        long start = System.nanoTime();
+        long ticks = player.playToEnd();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("seed " + player.getSeed() + ", " + ticks + " ticks, "
+                + player.getDeaths() + " deaths, final score " + player.getEngine().getState().getScore());
+        System.out.println(String.format("%.0f ticks/s", ticks / Math.max(seconds, 1e-9)));
+    }
+}
@@ -0,0 +1,183 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Records everything a GameEngine was told to do, so ReplayPlayer can run the
+// same session again. Randomness all comes from the seeded RNG, so the seed,
+// the board size, the power-ups and the inputs with the tick they landed on
+// are enough.
+//
+// The format is a header of
+//   magic, version, seed (8 bytes big-endian), width, height, tick millis,
+//   pickup lifetime millis, power-up count, power-ups, snapshot length, snapshot
+// where each power-up is
+//   id, name length, name (UTF-8), spawn weight, duration millis, speed,
+//   score multiplier, zigzag(points), growth
+// in the order they were registered, and the snapshot is a GameSnapshot to
+// start from, if the recording began part way through a session. Then comes
+// one record per input of
+//   varint((ticks since the last record << OP_BITS) | op) [, varint argument]
+// and an OP_END record. Apart from the magic, the seed, the name and the
+// snapshot bytes, everything is a varint.
+public class ReplayRecorder {
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    // 3 added the power-ups, 4 OP_PICKUP_COUNT, 5 the pickup lifetime, older
+    // replays wouldn't play back the same
+    static final int VERSION = 5;
+
+    // What each record means, in its low OP_BITS bits
+    static final int OP_BITS = 3;
+    static final int OP_TURN_CLOCKWISE = 0;
+    static final int OP_TURN_COUNTER_CLOCKWISE = 1;
+    static final int OP_NEW_GAME = 2;
+    // Followed by the zigzag encoded starting score
+    static final int OP_NEW_GAME_WITH_SCORE = 3;
+    // Followed by the new tick length
+    static final int OP_TICK_MILLIS = 4;
+    // Followed by how many pickups to keep on the board
+    static final int OP_PICKUP_COUNT = 5;
+    static final int OP_END = 7;
+
+    private byte[] mBytes = new byte[256];
+    private int mSize;
+    // Ticks run so far, and how many had run at the last record
+    private long mTicks;
+    private long mLastRecordTick;
+
+    // snapshot is null when the recording starts from the seed
+    ReplayRecorder(long seed, int width, int height, long tickMillis, PowerUpRegistry powerUps,
+                   byte[] snapshot) {
+        writeInt(MAGIC);
+        writeVarint(VERSION);
+        writeInt((int) (seed >>> 32));
+        writeInt((int) seed);
+        writeVarint(width);
+        writeVarint(height);
+        writeVarint(tickMillis);
+        writeVarint(powerUps.getPickupLifetimeMillis());
+        writeVarint(powerUps.size());
+        for (int i = 0; i < powerUps.size(); i++) {
+            PowerUpType type = powerUps.get(i);
+            writeVarint(type.getId());
+            byte[] name = type.getName().getBytes(StandardCharsets.UTF_8);
+            writeVarint(name.length);
+            for (byte b : name) {
+                writeByte(b);
+            }
+            writeVarint(type.getSpawnWeight());
+            writeVarint(type.getDurationMillis());
+            writeVarint(type.getSpeed());
+            writeVarint(type.getScoreMultiplier());
+            writeVarint(zigzag(type.getPoints()));
+            writeVarint(type.getGrowth());
+        }
+        if (snapshot == null) {
+            writeVarint(0);
+        } else {
+            writeVarint(snapshot.length);
+            for (byte b : snapshot) {
+                writeByte(b);
+            }
+        }
+    }
+
+    void tick() {
+        mTicks++;
+    }
+
+    void record(int op) {
+        writeVarint(((mTicks - mLastRecordTick) << OP_BITS) | op);
+        mLastRecordTick = mTicks;
+    }
+
+    void record(int op, long argument) {
+        record(op);
+        writeVarint(argument);
+    }
+
+    public long getTicks() {
+        return mTicks;
+    }
+
+    // Bytes recorded so far, not counting the end record
+    public int size() {
+        return mSize;
+    }
+
+    // A finished replay of everything up to now. Recording carries on afterwards.
+    public byte[] toByteArray() {
+        int size = mSize;
+        long lastRecordTick = mLastRecordTick;
+        record(OP_END);
+        byte[] replay = Arrays.copyOf(mBytes, mSize);
+        // Take the end record back off so later inputs follow on
+        mSize = size;
+        mLastRecordTick = lastRecordTick;
+        return replay;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(toByteArray());
+    }
+
+    // Everything recorded up to now, for another thread to write out without
+    // the game thread copying it. Later records only ever go after the bytes
+    // it covers, and a bigger buffer is a new array, so they never change.
+    public Replay capture() {
+        return new Replay(mBytes, mSize, ((mTicks - mLastRecordTick) << OP_BITS) | OP_END);
+    }
+
+    // A finished replay that shares the recorder's bytes, see capture()
+    public static final class Replay {
+        private final byte[] mBytes;
+        private final int mSize;
+        private final long mEndRecord;
+
+        Replay(byte[] bytes, int size, long endRecord) {
+            mBytes = bytes;
+            mSize = size;
+            mEndRecord = endRecord;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(mBytes, 0, mSize);
+            long value = mEndRecord;
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    // Maps small negative numbers to small varints
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeInt(int value) {
+        writeByte(value >>> 24);
+        writeByte(value >>> 16);
+        writeByte(value >>> 8);
+        writeByte(value);
+    }
+
+    // Seven bits at a time, low bits first, top bit set while more follow
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        writeByte((int) value);
+    }
+
+    private void writeByte(int value) {
+        if (mSize == mBytes.length) {
+            mBytes = Arrays.copyOf(mBytes, mSize * 2);
+        }
+        mBytes[mSize++] = (byte) value;
+    }
+}
@@ -0,0 +1,499 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Lots of boards of the same size stepped together, for bot training and
+// stress tests. Everything is kept in flat primitive arrays with one slot or
+// one stretch per board rather than an object graph per game, so stepping
+// every board is one tight loop over arrays and any range of boards can be
+// stepped on its own thread.
+//
+// Each board plays exactly the game a GameEngine seeded with seed + b would,
+// with only PowerUpType.APPLE registered and the default tick length, given
+// the same turns: one apple, no power-ups and one cell per step. Moving,
+// eating and dying go a cell at a time like the engine, the tail leaves before
+// the head arrives, growth is added on the moves after eating, and running
+// into the edge ring, a wall or the body ends the game and starts the next one
+// straight away. Walls and apples come from the same java.util.Random sequence
+// as GameRandom, rolled in the same order and counted through the free cells
+// in the same order as OccupancyGrid, and an uneaten apple moves after the
+// same time. SnakeBatchTest checks them against each other.
+public class SnakeBatch {
+    // What each board is told to do on a step
+    public static final int ACTION_STRAIGHT = 0;
+    public static final int ACTION_CLOCKWISE = 1;
+    public static final int ACTION_COUNTER_CLOCKWISE = 2;
+
+    // Heading ordinals to add for each action, turning once clockwise is +1
+    private static final int[] TURNS = {0, 1, 3};
+    // Offsets by Heading ordinal, UP RIGHT DOWN LEFT
+    private static final int[] DX = {0, 1, 0, -1};
+    private static final int[] DY = {-1, 0, 1, 0};
+    // Below this many boards a task just steps them rather than splitting again
+    private static final int BOARDS_PER_TASK = 256;
+    // What a move can't go into, an apple is eaten instead
+    private static final int FATAL = OccupancyGrid.SNAKE | OccupancyGrid.WALL | OccupancyGrid.EDGE;
+    // Moves an apple sits uneaten before it moves, like Pickup.needsRespawn()
+    private static final long APPLE_LIFETIME_STEPS = Pickup.MAX_TIME / GameEngine.DEFAULT_TICK_MILLIS;
+    // PowerUpRegistry.pick() rolls against this with only apples registered
+    private static final int APPLE_WEIGHT = PowerUpType.APPLE.getSpawnWeight();
+
+    private final int mBoards;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mCells;
+
+    // mCells bytes per board holding OccupancyGrid's SNAKE, WALL, APPLE and EDGE flags
+    private final byte[] mOccupied;
+    // Columns of GridChunk.SIZE cells across a board
+    private final int mChunksWide;
+    // mHeight * mChunksWide ints per board, each a bit per empty cell of one
+    // row of one chunk column, for counting to the n'th free cell quickly
+    private final int[] mFreeBits;
+    // Cells inside the edge ring on each board
+    private final int mInterior;
+    // mWallsPerBoard cells per board, the first mWallCount of them in use
+    private final int mWallsPerBoard;
+    private final int[] mWalls;
+    private final int[] mWallCount;
+    // mCells ints per board, a ring of y * width + x cells from the head back
+    private final int[] mBody;
+    private final int[] mHeadIndex;
+    private final int[] mTailIndex;
+    private final int[] mLength;
+    private final int[] mPendingGrowth;
+    private final int[] mHeadX;
+    private final int[] mHeadY;
+    private final byte[] mHeading;
+    // Cell of the apple, -1 while the board is full
+    private final int[] mApple;
+    // Moves since the apple was put where it is
+    private final int[] mAppleAge;
+    private final int[] mScore;
+    // Moves since the game started
+    private final int[] mSteps;
+    // Each board's own generator state, see GameRandom
+    private final long[] mRandom;
+    // GameEngine.EVENT_ bits from the last step
+    private final int[] mEvents;
+    // Score and moves of the game that ended on the last step
+    private final int[] mFinalScore;
+    private final int[] mFinalSteps;
+
+    public SnakeBatch(int boards, int width, int height, long seed) {
+        // Anything smaller has no cells inside the edge ring
+        if (boards <= 0 || width < 3 || height < 3) {
+            throw new IllegalArgumentException("Bad batch size " + boards + " of " + width + "x" + height);
+        }
+        if ((long) boards * width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch is too big to fit in one array");
+        }
+        mBoards = boards;
+        mWidth = width;
+        mHeight = height;
+        mCells = width * height;
+        mInterior = (width - 2) * (height - 2);
+        mWallsPerBoard = GameEngine.wallSegmentsFor(width, height);
+        if ((long) boards * mWallsPerBoard > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Batch is too big to fit in one array");
+        }
+        mOccupied = new byte[boards * mCells];
+        mChunksWide = (width + GridChunk.MASK) >> GridChunk.SHIFT;
+        mFreeBits = new int[boards * height * mChunksWide];
+        mWalls = new int[boards * mWallsPerBoard];
+        mWallCount = new int[boards];
+        mBody = new int[boards * mCells];
+        mHeadIndex = new int[boards];
+        mTailIndex = new int[boards];
+        mLength = new int[boards];
+        mPendingGrowth = new int[boards];
+        mHeadX = new int[boards];
+        mHeadY = new int[boards];
+        mHeading = new byte[boards];
+        mApple = new int[boards];
+        mAppleAge = new int[boards];
+        mScore = new int[boards];
+        mSteps = new int[boards];
+        mRandom = new long[boards];
+        mEvents = new int[boards];
+        mFinalScore = new int[boards];
+        mFinalSteps = new int[boards];
+        for (int b = 0; b < boards; b++) {
+            freeAll(b);
+            markEdges(b);
+            mRandom[b] = GameRandom.initialState(seed + b);
+            mApple[b] = -1;
+            reset(b);
+        }
+    }
+
+    // Steps every board, actions holds one ACTION_ per board
+    public void step(int[] actions) {
+        step(actions, 0, mBoards);
+    }
+
+    // Steps boards from up to but not including to. Boards share nothing, so
+    // separate ranges can be stepped on separate threads.
+    public void step(int[] actions, int from, int to) {
+        if (actions.length < mBoards) {
+            throw new IllegalArgumentException("Need an action for each of the " + mBoards + " boards");
+        }
+        for (int b = from; b < to; b++) {
+            mEvents[b] = stepBoard(b, actions[b]);
+        }
+    }
+
+    // Steps every board, split over the pool's threads
+    public void step(int[] actions, ForkJoinPool pool) {
+        if (actions.length < mBoards) {
+            throw new IllegalArgumentException("Need an action for each of the " + mBoards + " boards");
+        }
+        pool.invoke(new Steps(actions, 0, mBoards));
+    }
+
+    private final class Steps extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] mActions;
+        private final int mFrom;
+        private final int mTo;
+
+        Steps(int[] actions, int from, int to) {
+            mActions = actions;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= BOARDS_PER_TASK) {
+                step(mActions, mFrom, mTo);
+                return;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new Steps(mActions, mFrom, middle), new Steps(mActions, middle, mTo));
+        }
+    }
+
+    // One move of one board, returns the EVENT_ bits
+    private int stepBoard(int b, int action) {
+        int heading = (mHeading[b] + TURNS[action]) & 3;
+        mHeading[b] = (byte) heading;
+        // The edge ring is fatal, so the head never gets off the board
+        int x = mHeadX[b] + DX[heading];
+        int y = mHeadY[b] + DY[heading];
+
+        // Drop the tail first, or use this move to grow
+        int base = b * mCells;
+        if (mPendingGrowth[b] > 0) {
+            mPendingGrowth[b]--;
+            mLength[b]++;
+        } else {
+            int tail = mTailIndex[b];
+            setCell(b, mBody[base + tail], OccupancyGrid.EMPTY);
+            mTailIndex[b] = tail == 0 ? mCells - 1 : tail - 1;
+        }
+        int cell = y * mWidth + x;
+        // The tail has already left, so anything still here is the body, a wall or the edge
+        int hit = mOccupied[base + cell];
+        if ((hit & FATAL) != 0) {
+            int events = die(b);
+            return (hit & OccupancyGrid.WALL) != 0 ? events | GameEngine.EVENT_HIT_WALL : events;
+        }
+        int head = mHeadIndex[b] == 0 ? mCells - 1 : mHeadIndex[b] - 1;
+        mHeadIndex[b] = head;
+        mBody[base + head] = cell;
+        setCell(b, cell, OccupancyGrid.SNAKE);
+        mHeadX[b] = x;
+        mHeadY[b] = y;
+        mSteps[b]++;
+
+        if (cell == mApple[b]) {
+            mScore[b]++;
+            mPendingGrowth[b]++;
+            // The head has taken its cell
+            mApple[b] = -1;
+            spawnApple(b);
+            return GameEngine.EVENT_ATE_APPLE;
+        }
+        if (mApple[b] < 0) {
+            // The board was full, try again now the tail has moved
+            spawnApple(b);
+        } else if (++mAppleAge[b] > APPLE_LIFETIME_STEPS) {
+            // Stays put if there's nowhere to go, and tries again next move
+            spawnApple(b);
+        }
+        return GameEngine.EVENT_NONE;
+    }
+
+    private int die(int b) {
+        mFinalScore[b] = mScore[b];
+        mFinalSteps[b] = mSteps[b];
+        reset(b);
+        return GameEngine.EVENT_DIED;
+    }
+
+    // Every cell's free bit set, before anything is put on the board
+    private void freeAll(int b) {
+        int rows = b * mHeight * mChunksWide;
+        for (int y = 0; y < mHeight; y++) {
+            for (int cx = 0; cx < mChunksWide; cx++) {
+                int width = Math.min(GridChunk.SIZE, mWidth - (cx << GridChunk.SHIFT));
+                mFreeBits[rows + y * mChunksWide + cx] = width == GridChunk.SIZE ? -1 : (1 << width) - 1;
+            }
+        }
+    }
+
+    // The outer ring of cells, which never changes
+    private void markEdges(int b) {
+        for (int x = 0; x < mWidth; x++) {
+            setCell(b, x, OccupancyGrid.EDGE);
+            setCell(b, (mHeight - 1) * mWidth + x, OccupancyGrid.EDGE);
+        }
+        for (int y = 0; y < mHeight; y++) {
+            setCell(b, y * mWidth, OccupancyGrid.EDGE);
+            setCell(b, y * mWidth + mWidth - 1, OccupancyGrid.EDGE);
+        }
+    }
+
+    // Every change to a cell goes through here to keep its free bit right
+    private void setCell(int b, int cell, int flags) {
+        mOccupied[b * mCells + cell] = (byte) flags;
+        int y = cell / mWidth;
+        int x = cell - y * mWidth;
+        int row = (b * mHeight + y) * mChunksWide + (x >> GridChunk.SHIFT);
+        int bit = 1 << (x & GridChunk.MASK);
+        if (flags == OccupancyGrid.EMPTY) {
+            mFreeBits[row] |= bit;
+        } else {
+            mFreeBits[row] &= ~bit;
+        }
+    }
+
+    // A snake of one segment in the middle heading right like SnakeBody.reset(),
+    // then the walls and the apple in that order, like GameEngine.newGame()
+    private void reset(int b) {
+        int base = b * mCells;
+        for (int i = 0; i < mLength[b]; i++) {
+            setCell(b, mBody[base + (mHeadIndex[b] + i) % mCells], OccupancyGrid.EMPTY);
+        }
+        int walls = b * mWallsPerBoard;
+        for (int i = 0; i < mWallCount[b]; i++) {
+            setCell(b, mWalls[walls + i], OccupancyGrid.EMPTY);
+        }
+        mWallCount[b] = 0;
+        if (mApple[b] >= 0) {
+            setCell(b, mApple[b], OccupancyGrid.EMPTY);
+            mApple[b] = -1;
+        }
+        int x = mWidth / 2;
+        int y = mHeight / 2;
+        int cell = y * mWidth + x;
+        mHeadIndex[b] = 0;
+        mTailIndex[b] = 0;
+        mBody[base] = cell;
+        setCell(b, cell, OccupancyGrid.SNAKE);
+        mLength[b] = 1;
+        mPendingGrowth[b] = 0;
+        mHeadX[b] = x;
+        mHeadY[b] = y;
+        mHeading[b] = (byte) Heading.RIGHT.ordinal();
+        mScore[b] = 0;
+        mSteps[b] = 0;
+        for (int i = 0; i < mWallsPerBoard; i++) {
+            int wall = randomFreeCell(b);
+            if (wall < 0) {
+                break;
+            }
+            mWalls[walls + mWallCount[b]++] = wall;
+            setCell(b, wall, OccupancyGrid.WALL);
+        }
+        spawnApple(b);
+    }
+
+    // Puts the apple on a free cell and rolls its type like SpawnUtil.spawn(),
+    // or leaves it where it is if the board is full
+    private void spawnApple(int b) {
+        int cell = randomFreeCell(b);
+        if (cell < 0) {
+            return;
+        }
+        // Only ever an apple, but rolled for so the rolls after it line up
+        nextInt(b, 1);
+        nextInt(b, APPLE_WEIGHT);
+        if (mApple[b] >= 0) {
+            setCell(b, mApple[b], OccupancyGrid.EMPTY);
+        }
+        mApple[b] = cell;
+        setCell(b, cell, OccupancyGrid.APPLE);
+        mAppleAge[b] = 0;
+    }
+
+    // A random cell with nothing in it, picked like OccupancyGrid.randomFreeIndex(),
+    // or -1 if there isn't one
+    private int randomFreeCell(int b) {
+        int free = mInterior - mLength[b] - mWallCount[b] - (mApple[b] >= 0 ? 1 : 0);
+        if (free <= 0) {
+            return -1;
+        }
+        return nthFreeCell(b, nextInt(b, free));
+    }
+
+    // Counts through the empty cells in OccupancyGrid's order: rows of chunks,
+    // then the chunks in a row, then the cells of a chunk a row at a time
+    private int nthFreeCell(int b, int n) {
+        int rows = b * mHeight * mChunksWide;
+        for (int top = 0; top < mHeight; top += GridChunk.SIZE) {
+            int bottom = Math.min(mHeight, top + GridChunk.SIZE);
+            for (int cx = 0; cx < mChunksWide; cx++) {
+                for (int y = top; y < bottom; y++) {
+                    int bits = mFreeBits[rows + y * mChunksWide + cx];
+                    int count = Integer.bitCount(bits);
+                    if (n < count) {
+                        for (int i = 0; i < n; i++) {
+                            // Drop the lowest set bit
+                            bits &= bits - 1;
+                        }
+                        return y * mWidth + (cx << GridChunk.SHIFT) + Integer.numberOfTrailingZeros(bits);
+                    }
+                    n -= count;
+                }
+            }
+        }
+        throw new IllegalStateException("Free cell count is out");
+    }
+
+    // Random.nextInt(bound) from board b's generator
+    private int nextInt(int b, int bound) {
+        int r = next31(b);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return (int) ((bound * (long) r) >> 31);
+        }
+        for (int u = r; u - (r = u % bound) + m < 0; u = next31(b)) {
+            // rejected, it would favour the low numbers
+        }
+        return r;
+    }
+
+    // Random.next(31) from board b's generator
+    private int next31(int b) {
+        long state = GameRandom.nextState(mRandom[b]);
+        mRandom[b] = state;
+        return (int) (state >>> 17);
+    }
+
+    //Getters
+    public int getBoardCount() {
+        return mBoards;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    // GameEngine.EVENT_ bits from board b's last step
+    public int getEvents(int b) {
+        return mEvents[b];
+    }
+
+    public int getScore(int b) {
+        return mScore[b];
+    }
+
+    // Moves made in board b's current game
+    public int getSteps(int b) {
+        return mSteps[b];
+    }
+
+    // Score and moves of the game board b just lost, when getEvents() says it died
+    public int getFinalScore(int b) {
+        return mFinalScore[b];
+    }
+
+    public int getFinalSteps(int b) {
+        return mFinalSteps[b];
+    }
+
+    public int getLength(int b) {
+        return mLength[b];
+    }
+
+    public int getHeadX(int b) {
+        return mHeadX[b];
+    }
+
+    public int getHeadY(int b) {
+        return mHeadY[b];
+    }
+
+    public Heading getHeading(int b) {
+        return Heading.fromOrdinal(mHeading[b]);
+    }
+
+    // -1 while the board is full
+    public int getAppleX(int b) {
+        return mApple[b] < 0 ? -1 : mApple[b] % mWidth;
+    }
+
+    public int getAppleY(int b) {
+        return mApple[b] < 0 ? -1 : mApple[b] / mWidth;
+    }
+
+    public boolean isSnakeAt(int b, int x, int y) {
+        return has(b, x, y, OccupancyGrid.SNAKE);
+    }
+
+    public boolean isWallAt(int b, int x, int y) {
+        return has(b, x, y, OccupancyGrid.WALL);
+    }
+
+    // Cells off the board count as edge, like OccupancyGrid
+    public boolean isEdgeAt(int b, int x, int y) {
+        return has(b, x, y, OccupancyGrid.EDGE);
+    }
+
+    private boolean has(int b, int x, int y, int flags) {
+        if (x < 0 || x >= mWidth || y < 0 || y >= mHeight) {
+            return (flags & OccupancyGrid.EDGE) != 0;
+        }
+        return (mOccupied[b * mCells + y * mWidth + x] & flags) != 0;
+    }
+
+    // Steps a batch of boards with random turns and prints how fast it went:
+    //   java -cp engine.jar com.gamecodeschool.snakeysnake.engine.SnakeBatch [boards] [steps] [width] [height]
+    public static void main(String[] args) {
+        int boards = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int steps = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int width = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int height = args.length > 3 ? Integer.parseInt(args[3]) : 20;
+
+        SnakeBatch batch = new SnakeBatch(boards, width, height, 42);
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        int[] actions = new int[boards];
+        Random random = new Random(7);
+        // A few sets of actions made up front so the timing is the batch and not the Random
+        int[][] plans = new int[16][boards];
+        for (int[] plan : plans) {
+            for (int b = 0; b < boards; b++) {
+                int roll = random.nextInt(10);
+                plan[b] = roll == 0 ? ACTION_CLOCKWISE : roll == 1 ? ACTION_COUNTER_CLOCKWISE : ACTION_STRAIGHT;
+            }
+        }
+        long start = System.nanoTime();
+        for (int s = 0; s < steps; s++) {
+            System.arraycopy(plans[s & 15], 0, actions, 0, boards);
+            batch.step(actions, pool);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(boards + " boards of " + width + "x" + height + ", " + steps + " steps on "
+                + pool.getParallelism() + " threads");
+        System.out.println(String.format("%.1fM board-steps/s", (double) boards * steps / seconds / 1e6));
+    }
+}
@@ -0,0 +1,305 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+
+// The snake's segments, heading and speed effects with no drawing attached
+public class SnakeBody {
+
+    // The grid cells of all the segments in a circular buffer,
+    // each one packed into an int by cellOf(x, y)
+    private int[] mSegments;
+    // Where the head and the tail sit in mSegments
+    private int mHeadIndex;
+    private int mTailIndex;
+    private int mLength;
+    // Segments still to be added as the snake moves after eating
+    private int mPendingGrowth;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Shared record of which cells are taken
+    private final OccupancyGrid mGrid;
+    // Set when the head moves onto a cell the body already holds
+    private boolean mHitSelf;
+
+    // Start by heading to the right
+    private Heading heading = Heading.RIGHT;
+
+    // Where the head and tail were before the last move, used to interpolate drawing
+    private int mPrevHeadX;
+    private int mPrevHeadY;
+    private int mPrevTailX;
+    private int mPrevTailY;
+    // How many cells the head has been pushed forward, ever
+    private long mMoveCount;
+
+    // How many cells to move each tick, with any speed effects from EffectTimeline
+    private final MoveScheduler mMover = new MoveScheduler();
+    private boolean gameOver = false;
+
+    public SnakeBody(OccupancyGrid grid) {
+        this.mGrid = grid;
+        this.mSegments = new int[INITIAL_CAPACITY];
+    }
+
+    // Overloaded reset method to reset with a custom length
+    public void reset(int w, int h, int length) {
+        heading = Heading.RIGHT;
+        clearSegments();
+
+        // Start with a snake of the specified length
+        for (int i = 0; i < length; i++) {
+            addTail(cellOf(w / 2 - i, h / 2));
+        }
+        rememberEnds();
+        mMover.reset();
+        gameOver = false;
+    }
+
+    // Get the snake ready for a new game
+    public void reset(int w, int h) {
+        reset(w, h, 1);
+    }
+
+    public MoveScheduler getMover() {
+        return mMover;
+    }
+
+    public void move() {
+        move(1);
+    }
+
+    // Moves steps cells, one at a time. GameEngine uses beginMove() and step()
+    // instead so it can check for collisions after every cell.
+    public void move(int steps) {
+        beginMove();
+        for (int i = 0; i < steps; i++) {
+            step();
+        }
+    }
+
+    // Remembers where the ends are before a tick's moves, for interpolation
+    void beginMove() {
+        rememberEnds();
+    }
+
+    // Pushes the head one cell forward
+    void step() {
+        // Work out the new head cell from the existing head position
+        int x = cellX(mSegments[mHeadIndex]) + heading.dx;
+        int y = cellY(mSegments[mHeadIndex]) + heading.dy;
+
+        // Every body segment follows the one in front of it, which is the
+        // same as dropping the tail and pushing a new head
+        if (mPendingGrowth > 0) {
+            mPendingGrowth--;
+            ensureCapacity(mLength + 1);
+            mLength++;
+        } else {
+            int tail = mSegments[mTailIndex];
+            mGrid.clear(cellX(tail), cellY(tail), OccupancyGrid.SNAKE);
+            mTailIndex = (mTailIndex - 1) & (mSegments.length - 1);
+        }
+        mHeadIndex = (mHeadIndex - 1) & (mSegments.length - 1);
+        mSegments[mHeadIndex] = cellOf(x, y);
+
+        // The tail has already left, so any snake left in this cell is the body
+        if (mGrid.has(x, y, OccupancyGrid.SNAKE)) {
+            mHitSelf = true;
+        }
+        mGrid.set(x, y, OccupancyGrid.SNAKE);
+        mMoveCount++;
+    }
+
+    private void rememberEnds() {
+        mPrevHeadX = cellX(mSegments[mHeadIndex]);
+        mPrevHeadY = cellY(mSegments[mHeadIndex]);
+        mPrevTailX = cellX(mSegments[mTailIndex]);
+        mPrevTailY = cellY(mSegments[mTailIndex]);
+    }
+
+    // Has the head run into the body since the last reset?
+    public boolean hasHitSelf() {
+        return mHitSelf;
+    }
+
+    public boolean isHeadAt(int x, int y) {
+        return mLength > 0 && getHeadX() == x && getHeadY() == y;
+    }
+
+    public boolean checkDinner(int x, int y) {
+        if (isHeadAt(x, y)) {
+            // Grow by one segment on the next move
+            grow(1);
+            return true;
+        }
+        return false;
+    }
+
+    // Adds segments over the next few moves, one per move
+    public void grow(int segments) {
+        mPendingGrowth += segments;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public void setGameOver(boolean gameOver) {
+        this.gameOver = gameOver;
+    }
+
+    //is the snake currently sped up?
+    public boolean isBoosted() {
+        return mMover.isFaster();
+    }
+
+    //is the snake currently slowed?
+    public boolean isSlowed() {
+        return mMover.isSlower();
+    }
+
+    public Heading getHeading() {
+        return heading;
+    }
+
+    public void turnClockwise() {
+        heading = heading.rotateClockwise();
+    }
+
+    public void turnCounterClockwise() {
+        heading = heading.rotateCounterClockwise();
+    }
+
+    public int getHeadX() {
+        return cellX(mSegments[mHeadIndex]);
+    }
+
+    public int getHeadY() {
+        return cellY(mSegments[mHeadIndex]);
+    }
+
+    public int getPrevHeadX() {
+        return mPrevHeadX;
+    }
+
+    public int getPrevHeadY() {
+        return mPrevHeadY;
+    }
+
+    public long getMoveCount() {
+        return mMoveCount;
+    }
+
+    public int getPrevTailX() {
+        return mPrevTailX;
+    }
+
+    public int getPrevTailY() {
+        return mPrevTailY;
+    }
+
+    // How many segments the snake has, counting the head
+    public int getLength() {
+        return mLength;
+    }
+
+    // The packed cell of segment i, where 0 is the head
+    public int segmentAt(int i) {
+        return mSegments[(mHeadIndex + i) & (mSegments.length - 1)];
+    }
+
+    // Cells are packed as x in the high 16 bits and y in the low 16 bits,
+    // which keeps off-board cells like -1 intact
+    public static int cellOf(int x, int y) {
+        return (x << 16) | (y & 0xFFFF);
+    }
+
+    public static int cellX(int cell) {
+        return cell >> 16;
+    }
+
+    public static int cellY(int cell) {
+        return (short) cell;
+    }
+
+    private void clearSegments() {
+        // Take the old body off the grid
+        for (int i = 0; i < mLength; i++) {
+            int cell = segmentAt(i);
+            mGrid.clear(cellX(cell), cellY(cell), OccupancyGrid.SNAKE);
+        }
+        mHitSelf = false;
+        mHeadIndex = 0;
+        mTailIndex = mSegments.length - 1;
+        mLength = 0;
+        mPendingGrowth = 0;
+    }
+
+    // Bytes save() will write
+    int snapshotSize() {
+        return 4 + 4 * mLength + 4 + 1 + 1 + 4 * 4 + 8 + mMover.snapshotSize() + 1;
+    }
+
+    // Writes everything about the snake for GameSnapshot, segments head first
+    void save(ByteBuffer out) {
+        out.putInt(mLength);
+        for (int i = 0; i < mLength; i++) {
+            out.putInt(segmentAt(i));
+        }
+        out.putInt(mPendingGrowth);
+        out.put((byte) (mHitSelf ? 1 : 0));
+        out.put((byte) heading.ordinal());
+        out.putInt(mPrevHeadX);
+        out.putInt(mPrevHeadY);
+        out.putInt(mPrevTailX);
+        out.putInt(mPrevTailY);
+        out.putLong(mMoveCount);
+        mMover.save(out);
+        out.put((byte) (gameOver ? 1 : 0));
+    }
+
+    // Puts back what save() wrote, taking the old body off the grid first
+    void restore(ByteBuffer in) {
+        clearSegments();
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining() / 4) {
+            throw new IllegalArgumentException("Bad snake length " + length);
+        }
+        for (int i = 0; i < length; i++) {
+            addTail(in.getInt());
+        }
+        mPendingGrowth = in.getInt();
+        mHitSelf = in.get() != 0;
+        heading = Heading.fromOrdinal(in.get());
+        mPrevHeadX = in.getInt();
+        mPrevHeadY = in.getInt();
+        mPrevTailX = in.getInt();
+        mPrevTailY = in.getInt();
+        mMoveCount = in.getLong();
+        mMover.restore(in);
+        gameOver = in.get() != 0;
+    }
+
+    // Appends a segment behind the current tail, only used while resetting
+    private void addTail(int cell) {
+        ensureCapacity(mLength + 1);
+        mTailIndex = (mTailIndex + 1) & (mSegments.length - 1);
+        mSegments[mTailIndex] = cell;
+        mLength++;
+        mGrid.set(cellX(cell), cellY(cell), OccupancyGrid.SNAKE);
+    }
+
+    // Doubles the buffer when it is full, so growing is amortised O(1)
+    private void ensureCapacity(int needed) {
+        if (needed <= mSegments.length) {
+            return;
+        }
+        int[] bigger = new int[mSegments.length * 2];
+        for (int i = 0; i < mLength; i++) {
+            bigger[i] = segmentAt(i);
+        }
+        mSegments = bigger;
+        mHeadIndex = 0;
+        mTailIndex = mLength - 1;
+    }
+}
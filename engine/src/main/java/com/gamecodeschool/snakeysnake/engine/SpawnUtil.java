@@ -0,0 +1,35 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.util.Random;
+
+public class SpawnUtil {
+    // The board whose free cells apples are placed in
+    private final OccupancyGrid mGrid;
+    // One seeded generator reused for every spawn
+    private final Random mRandom;
+    // The types that can spawn and how likely each one is
+    private final PowerUpRegistry mPowerUps;
+
+    //constructor
+    public SpawnUtil(OccupancyGrid grid, Random random) {
+        this(grid, random, PowerUpRegistry.defaults());
+    }
+
+    public SpawnUtil(OccupancyGrid grid, Random random, PowerUpRegistry powerUps) {
+        mGrid = grid;
+        mRandom = random;
+        mPowerUps = powerUps;
+    }
+
+    //moves the apple to a random cell with no snake, wall or apple in it, and
+    //rolls its type once here so it stays the same until it is eaten
+    //returns false when the board is full and the apple stays where it was
+    public boolean spawn(Pickup apple, long now) {
+        int index = mGrid.randomFreeIndex(mRandom);
+        if (index < 0) {
+            return false;
+        }
+        apple.spawn(mGrid.indexX(index), mGrid.indexY(index), mPowerUps.pick(mRandom), now);
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+// Where the wall blocks are, with no drawing attached
+public class WallLayout {
+    private final OccupancyGrid mGrid;
+
+    // Holds the packed cells of the wall segments
+    private int[] mSegments = new int[0];
+    private int mCount;
+    // Goes up every time the walls are rebuilt so renderers know to redraw them
+    private int mVersion;
+
+    public WallLayout(OccupancyGrid grid) {
+        this.mGrid = grid;
+    }
+
+    public void initializeWall(int numberOfSegments, Random random) {
+        //clears the old wall segments from the previous game
+        clearSegments();
+        if (mSegments.length < numberOfSegments) {
+            mSegments = new int[numberOfSegments];
+        }
+        mVersion++;
+        //random empty cells, so a segment never lands on the snake, the edge,
+        //an apple or another segment
+        for (int i = 0; i < numberOfSegments; i++) {
+            int index = mGrid.randomFreeIndex(random);
+            if (index < 0) {
+                // The board is full, it gets fewer walls
+                break;
+            }
+            int x = mGrid.indexX(index);
+            int y = mGrid.indexY(index);
+            mSegments[mCount++] = SnakeBody.cellOf(x, y);
+            mGrid.set(x, y, OccupancyGrid.WALL);
+        }
+    }
+
+    int snapshotSize() {
+        return 4 + 4 * mCount;
+    }
+
+    void save(ByteBuffer out) {
+        out.putInt(mCount);
+        for (int i = 0; i < mCount; i++) {
+            out.putInt(mSegments[i]);
+        }
+    }
+
+    void restore(ByteBuffer in) {
+        clearSegments();
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining() / 4) {
+            throw new IllegalArgumentException("Bad wall count " + count);
+        }
+        if (mSegments.length < count) {
+            mSegments = new int[count];
+        }
+        mCount = count;
+        mVersion++;
+        for (int i = 0; i < count; i++) {
+            mSegments[i] = in.getInt();
+            mGrid.set(SnakeBody.cellX(mSegments[i]), SnakeBody.cellY(mSegments[i]), OccupancyGrid.WALL);
+        }
+    }
+
+    // Takes the walls off the grid one segment at a time, which on a big
+    // board is far less than looking at every cell
+    private void clearSegments() {
+        for (int i = 0; i < mCount; i++) {
+            mGrid.clear(SnakeBody.cellX(mSegments[i]), SnakeBody.cellY(mSegments[i]), OccupancyGrid.WALL);
+        }
+        mCount = 0;
+    }
+
+    //checks if a cell holds a wall segment
+    public boolean checkCollision(int x, int y) {
+        return mGrid.has(x, y, OccupancyGrid.WALL);
+    }
+
+    public int getVersion() {
+        return mVersion;
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    // The packed cell of wall segment i
+    public int segmentAt(int i) {
+        return mSegments[i];
+    }
+}
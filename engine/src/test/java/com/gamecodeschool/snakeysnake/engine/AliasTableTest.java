@@ -0,0 +1,46 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AliasTableTest {
+    @Test
+    public void pick_followsTheWeights() {
+        int[] weights = {70, 15, 0, 10, 5};
+        AliasTable table = new AliasTable(weights);
+        int[] counts = new int[weights.length];
+        Random random = new Random(4);
+        int samples = 1000000;
+        for (int i = 0; i < samples; i++) {
+            counts[table.pick(random)]++;
+        }
+        assertEquals(0, counts[2]);
+        for (int i = 0; i < weights.length; i++) {
+            double expected = samples * weights[i] / 100.0;
+            // Well over 6 standard deviations
+            assertEquals("index " + i, expected, counts[i], 2500);
+        }
+    }
+
+    @Test
+    public void pick_withOneWeight_alwaysPicksIt() {
+        AliasTable table = new AliasTable(new int[]{0, 0, 3});
+        Random random = new Random(5);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(2, table.pick(random));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAllZeroWeights() {
+        new AliasTable(new int[]{0, 0});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeWeights() {
+        new AliasTable(new int[]{3, -1});
+    }
+}
@@ -0,0 +1,55 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AutopilotTest {
+    private static final int BLOCKED = OccupancyGrid.SNAKE | OccupancyGrid.WALL | OccupancyGrid.EDGE;
+
+    private static boolean blocked(GameEngine engine, int x, int y, Heading heading) {
+        return engine.getState().getGrid().has(x + heading.dx, y + heading.dy, BLOCKED);
+    }
+
+    @Test
+    public void neverCrashes_whenThereIsASafeMove() {
+        // Plain apples only, so the snake always goes one cell a tick
+        GameEngine engine = new GameEngine(24, 16, 5, new PowerUpRegistry().register(PowerUpType.APPLE));
+        engine.setPickupCount(4);
+        engine.newGame();
+        Autopilot autopilot = new Autopilot(engine);
+        int deaths = 0;
+        for (int i = 0; i < 20000; i++) {
+            SnakeBody snake = engine.getState().getSnake();
+            int x = snake.getHeadX();
+            int y = snake.getHeadY();
+            Heading heading = snake.getHeading();
+            boolean safeMove = !blocked(engine, x, y, heading)
+                    || !blocked(engine, x, y, heading.rotateClockwise())
+                    || !blocked(engine, x, y, heading.rotateCounterClockwise());
+            Heading chosen = autopilot.choose();
+            assertNotSame("tick " + i, heading.rotateClockwise().rotateClockwise(), chosen);
+            if (safeMove) {
+                assertFalse("tick " + i, blocked(engine, x, y, chosen));
+            }
+            autopilot.steer();
+            assertSame(chosen, snake.getHeading());
+            if ((engine.tick() & GameEngine.EVENT_DIED) != 0) {
+                deaths++;
+            }
+        }
+        // Only boxing itself in with no way out ends a game
+        assertTrue(deaths < 20000 / 100);
+    }
+
+    @Test
+    public void turnsAwayFromAWallAhead() {
+        GameEngine engine = new GameEngine(20, 12, 1);
+        engine.setPickupCount(0);
+        engine.newGame();
+        SnakeBody snake = engine.getState().getSnake();
+        engine.getState().getGrid().set(snake.getHeadX() + 1, snake.getHeadY(), OccupancyGrid.WALL);
+        Heading chosen = new Autopilot(engine).choose();
+        assertTrue(chosen == Heading.UP || chosen == Heading.DOWN);
+    }
+}
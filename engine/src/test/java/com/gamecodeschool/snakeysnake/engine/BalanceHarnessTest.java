@@ -0,0 +1,49 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BalanceHarnessTest {
+    private static BalanceHarness.Result[] run(int parallelism) {
+        BalanceHarness.Setting[] settings = {
+                new BalanceHarness.Setting(10, 5000, 4000),
+                new BalanceHarness.Setting(50, 15000, 12000),
+        };
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return new BalanceHarness(16, 10, 42, 24).run(settings, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameHistogram(String what, LatencyHistogram expected, LatencyHistogram actual) {
+        assertEquals(what, expected.getCount(), actual.getCount());
+        assertEquals(what, expected.getMean(), actual.getMean());
+        assertEquals(what, expected.getMax(), actual.getMax());
+        for (int percentile = 0; percentile <= 100; percentile += 10) {
+            assertEquals(what + " p" + percentile, expected.getPercentile(percentile), actual.getPercentile(percentile));
+        }
+    }
+
+    @Test
+    public void sameResults_atAnyParallelism() {
+        BalanceHarness.Result[] one = run(1);
+        BalanceHarness.Result[] four = run(4);
+        assertEquals(one.length, four.length);
+        for (int i = 0; i < one.length; i++) {
+            String setting = one[i].setting.toString();
+            assertEquals(setting, four[i].setting.toString());
+            assertEquals(setting, 24, one[i].survival.getCount());
+            assertSameHistogram(setting + " scores", one[i].scores, four[i].scores);
+            assertSameHistogram(setting + " survival", one[i].survival, four[i].survival);
+            assertEquals(setting, one[i].timedOut.get(), four[i].timedOut.get());
+            for (int id = 0; id <= PowerUpType.MAX_ID; id++) {
+                assertEquals(setting + " eaten " + id, one[i].eaten.get(id), four[i].eaten.get(id));
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class EffectTimelineTest {
+    // Doubles the score for duration milliseconds
+    private static PowerUpType doubler(int id, long duration) {
+        return new PowerUpType(id, "doubler " + id, 1, duration, MoveScheduler.ONE, 2, 1, 1);
+    }
+
+    @Test
+    public void sameType_stacks() {
+        MoveScheduler mover = new MoveScheduler();
+        EffectTimeline effects = new EffectTimeline(mover);
+        effects.add(PowerUpType.GOLDEN_APPLE, 0);
+        effects.add(PowerUpType.GOLDEN_APPLE, 1000);
+        assertEquals(2, effects.size());
+        assertEquals(4 * MoveScheduler.ONE, effects.getSpeed());
+        assertEquals(MoveScheduler.MAX_SPEED, mover.getSpeed());
+
+        assertEquals(1, effects.expire(10000));
+        assertEquals(2 * MoveScheduler.ONE, mover.getSpeed());
+        assertTrue(effects.isActive(PowerUpType.GOLDEN_APPLE));
+        assertEquals(1, effects.expire(11000));
+        assertEquals(MoveScheduler.ONE, mover.getSpeed());
+        assertFalse(effects.isActive(PowerUpType.GOLDEN_APPLE));
+    }
+
+    @Test
+    public void scoreMultipliers_multiply() {
+        EffectTimeline effects = new EffectTimeline(new MoveScheduler());
+        effects.add(doubler(10, 500), 0);
+        effects.add(doubler(11, 500), 0);
+        effects.add(doubler(12, 500), 0);
+        assertEquals(8, effects.getScoreMultiplier());
+        effects.expire(500);
+        assertEquals(1, effects.getScoreMultiplier());
+    }
+
+    @Test
+    public void expires_inOrderOfEnding() {
+        EffectTimeline effects = new EffectTimeline(new MoveScheduler());
+        long[] durations = {3000, 1000, 5000, 2000, 4000};
+        for (int i = 0; i < durations.length; i++) {
+            effects.add(doubler(i, durations[i]), 0);
+        }
+        for (long end = 1000; end <= 5000; end += 1000) {
+            assertEquals(end, effects.getNextEnd());
+            assertEquals(0, effects.expire(end - 1));
+            assertEquals(1, effects.expire(end));
+        }
+        assertEquals(Long.MAX_VALUE, effects.getNextEnd());
+    }
+
+    @Test
+    public void untimedTypes_areIgnored() {
+        EffectTimeline effects = new EffectTimeline(new MoveScheduler());
+        effects.add(PowerUpType.APPLE, 0);
+        assertEquals(0, effects.size());
+    }
+
+    @Test
+    public void full_dropsTheOneEndingFirst() {
+        EffectTimeline effects = new EffectTimeline(new MoveScheduler());
+        PowerUpType first = doubler(0, 1000);
+        effects.add(first, 0);
+        for (int i = 1; i < EffectTimeline.MAX_EFFECTS; i++) {
+            effects.add(doubler(i, 1000 + i), 0);
+        }
+        PowerUpType last = doubler(100, 5000);
+        effects.add(last, 0);
+        assertEquals(EffectTimeline.MAX_EFFECTS, effects.size());
+        assertFalse(effects.isActive(first));
+        assertTrue(effects.isActive(last));
+        assertEquals(1001, effects.getNextEnd());
+    }
+}
@@ -0,0 +1,96 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GameEngineTest {
+    // Nothing spawned sits on the snake, a wall, the edge or another pickup
+    private static void assertNothingOverlaps(GameEngine engine, String when) {
+        GameState state = engine.getState();
+        OccupancyGrid grid = state.getGrid();
+        WallLayout wall = state.getWall();
+        for (int i = 0; i < wall.getCount(); i++) {
+            int cell = wall.segmentAt(i);
+            assertEquals(when + ": wall " + i, OccupancyGrid.WALL,
+                    grid.get(SnakeBody.cellX(cell), SnakeBody.cellY(cell)));
+        }
+        PickupPool pickups = state.getPickups();
+        for (int i = 0; i < pickups.getActiveCount(); i++) {
+            Pickup pickup = pickups.getActive(i);
+            assertEquals(when + ": pickup " + i, OccupancyGrid.APPLE, grid.get(pickup.getX(), pickup.getY()));
+            assertSame(when + ": pickup " + i, pickup, pickups.at(pickup.getX(), pickup.getY()));
+        }
+    }
+
+    @Test
+    public void spawns_neverLandOnAnything() {
+        GameEngine engine = new GameEngine(20, 12, 3);
+        engine.setPickupCount(GameState.MAX_PICKUPS);
+        engine.newGame();
+        assertNothingOverlaps(engine, "new game");
+        Autopilot autopilot = new Autopilot(engine);
+        for (int i = 0; i < 50000; i++) {
+            autopilot.steer();
+            int events = engine.tick();
+            String when = "tick " + i;
+            assertNothingOverlaps(engine, when);
+            if ((events & GameEngine.EVENT_DIED) != 0) {
+                // The engine started the next game itself
+                assertEquals(when, 1, engine.getState().getSnake().getLength());
+            }
+        }
+    }
+
+    @Test
+    public void newGame_fillsTheBoardWithPickups() {
+        GameEngine engine = new GameEngine(40, 20, 8);
+        engine.setPickupCount(5);
+        engine.newGame();
+        assertEquals(5, engine.getState().getPickups().getActiveCount());
+        assertEquals(GameEngine.wallSegmentsFor(40, 20), engine.getState().getWall().getCount());
+    }
+
+    @Test
+    public void newGame_withScore_publishesIt() {
+        GameEngine engine = new GameEngine(20, 12, 1);
+        final int[] scores = new int[1];
+        engine.getEvents().addListener(new GameEvents.Listener() {
+            @Override
+            public void onGameEvent(int type, int a, int b, long timeMillis) {
+                if (type == GameEvents.SCORE_CHANGED) {
+                    scores[0] = a;
+                }
+            }
+        });
+        engine.newGame(12);
+        engine.getEvents().dispatch();
+        assertEquals(12, engine.getState().getScore());
+        assertEquals(12, scores[0]);
+    }
+
+    @Test
+    public void death_reportsTheScoreItEndedOn() {
+        GameEngine engine = new GameEngine(20, 12, 5);
+        final int[] deaths = new int[2];
+        engine.getEvents().addListener(new GameEvents.Listener() {
+            @Override
+            public void onGameEvent(int type, int a, int b, long timeMillis) {
+                if (type == GameEvents.DEATH) {
+                    deaths[0]++;
+                    deaths[1] = b;
+                }
+            }
+        });
+        engine.newGame(7);
+        // Heading right with nothing steering, it runs into the edge
+        int events;
+        do {
+            events = engine.tick();
+            engine.getEvents().dispatch();
+        } while ((events & GameEngine.EVENT_DIED) == 0);
+        assertEquals(1, deaths[0]);
+        assertTrue(deaths[1] >= 7);
+        assertEquals(0, engine.getState().getScore());
+    }
+}
@@ -0,0 +1,96 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GameEventsTest {
+    // Writes down everything it hears as "name:type:a:b:time"
+    private static GameEvents.Listener recorder(final String name, final List<String> heard) {
+        return new GameEvents.Listener() {
+            @Override
+            public void onGameEvent(int type, int a, int b, long timeMillis) {
+                heard.add(name + ":" + type + ":" + a + ":" + b + ":" + timeMillis);
+            }
+        };
+    }
+
+    @Test
+    public void dispatch_inOrderToEveryListener() {
+        GameEvents events = new GameEvents();
+        List<String> heard = new ArrayList<>();
+        events.addListener(recorder("first", heard));
+        events.addListener(recorder("second", heard));
+        events.publish(GameEvents.APPLE_EATEN, 0, 1, 100);
+        events.publish(GameEvents.SCORE_CHANGED, 1, 1, 100);
+        assertEquals(2, events.size());
+        assertEquals(2, events.dispatch());
+        assertEquals(0, events.size());
+        assertEquals(4, heard.size());
+        assertEquals("first:0:0:1:100", heard.get(0));
+        assertEquals("second:0:0:1:100", heard.get(1));
+        assertEquals("first:3:1:1:100", heard.get(2));
+        assertEquals("second:3:1:1:100", heard.get(3));
+        assertEquals(0, events.dispatch());
+    }
+
+    @Test
+    public void publishedWhileDispatching_comesAfter() {
+        final GameEvents events = new GameEvents();
+        final List<String> heard = new ArrayList<>();
+        events.addListener(new GameEvents.Listener() {
+            @Override
+            public void onGameEvent(int type, int a, int b, long timeMillis) {
+                heard.add(type + ":" + a);
+                if (type == GameEvents.DEATH) {
+                    events.publish(GameEvents.SCORE_CHANGED, 0, -a, timeMillis);
+                }
+            }
+        });
+        events.publish(GameEvents.DEATH, 5, 5, 0);
+        events.publish(GameEvents.APPLE_EATEN, 6, 1, 0);
+        assertEquals(3, events.dispatch());
+        assertEquals("2:5", heard.get(0));
+        assertEquals("0:6", heard.get(1));
+        assertEquals("3:0", heard.get(2));
+    }
+
+    @Test
+    public void overflow_dropsTheOldest() {
+        GameEvents events = new GameEvents();
+        List<String> heard = new ArrayList<>();
+        events.addListener(recorder("l", heard));
+        for (int i = 0; i < 100; i++) {
+            events.publish(GameEvents.SCORE_CHANGED, i, 1, i);
+        }
+        int kept = events.size();
+        assertEquals(100 - kept, events.getDropped());
+        assertEquals(kept, events.dispatch());
+        for (int i = 0; i < kept; i++) {
+            int a = 100 - kept + i;
+            assertEquals("l:3:" + a + ":1:" + a, heard.get(i));
+        }
+    }
+
+    @Test
+    public void removeListener_andClear() {
+        GameEvents events = new GameEvents();
+        List<String> heard = new ArrayList<>();
+        GameEvents.Listener first = recorder("first", heard);
+        events.addListener(first);
+        events.addListener(recorder("second", heard));
+        events.removeListener(first);
+        events.publish(GameEvents.DEATH, 4, 0, 7);
+        events.dispatch();
+        assertEquals(1, heard.size());
+        assertEquals("second:2:4:0:7", heard.get(0));
+
+        events.publish(GameEvents.DEATH, 4, 0, 8);
+        events.clear();
+        assertEquals(0, events.dispatch());
+        assertEquals(1, heard.size());
+    }
+}
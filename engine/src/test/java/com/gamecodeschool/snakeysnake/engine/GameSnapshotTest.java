@@ -0,0 +1,77 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GameSnapshotTest {
+    // A turn now and then, the same ones for any two engines given the same turns
+    private static void steer(GameEngine engine, Random turns) {
+        int turn = turns.nextInt(6);
+        if (turn == 0) {
+            engine.turnClockwise();
+        } else if (turn == 1) {
+            engine.turnCounterClockwise();
+        }
+    }
+
+    // Plays a while so there have been deaths, apples eaten and walls laid
+    private static GameEngine played(long seed, int ticks) {
+        GameEngine engine = new GameEngine(30, 20, seed);
+        engine.newGame();
+        Random turns = new Random(seed);
+        for (int i = 0; i < ticks; i++) {
+            steer(engine, turns);
+            engine.tick();
+        }
+        return engine;
+    }
+
+    @Test
+    public void restored_carriesOnExactlyTheSame() {
+        GameEngine original = played(7, 3000);
+        // Same seed so the headers match, the RNG has moved on a long way since
+        GameEngine restored = new GameEngine(30, 20, 7);
+        GameSnapshot.read(restored, ByteBuffer.wrap(GameSnapshot.toByteArray(original)));
+        assertArrayEquals(GameSnapshot.toByteArray(original), GameSnapshot.toByteArray(restored));
+
+        Random first = new Random(3);
+        Random second = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            steer(original, first);
+            steer(restored, second);
+            assertEquals("tick " + i, original.tick(), restored.tick());
+        }
+        assertEquals(original.getState().getScore(), restored.getState().getScore());
+        assertArrayEquals(GameSnapshot.toByteArray(original), GameSnapshot.toByteArray(restored));
+    }
+
+    @Test
+    public void restored_rebuildsTheGrid() {
+        GameEngine original = played(11, 2000);
+        GameEngine restored = new GameEngine(30, 20, 11);
+        GameSnapshot.read(restored, ByteBuffer.wrap(GameSnapshot.toByteArray(original)));
+        OccupancyGrid expected = original.getState().getGrid();
+        OccupancyGrid actual = restored.getState().getGrid();
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 30; x++) {
+                assertEquals(x + "," + y, expected.get(x, y), actual.get(x, y));
+            }
+        }
+        assertEquals(expected.getFreeCount(), actual.getFreeCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_rejectsADifferentBoard() {
+        GameSnapshot.read(new GameEngine(31, 20, 7), ByteBuffer.wrap(GameSnapshot.toByteArray(played(7, 10))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void read_rejectsACutShortSnapshot() {
+        byte[] snapshot = GameSnapshot.toByteArray(played(7, 10));
+        GameSnapshot.read(new GameEngine(30, 20, 7), ByteBuffer.wrap(snapshot, 0, snapshot.length / 2));
+    }
+}
@@ -0,0 +1,88 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class InputQueueTest {
+    // How many offers go in before the queue says it's full
+    private static int fill(InputQueue queue) {
+        int count = 0;
+        while (queue.offer(1, count)) {
+            count++;
+        }
+        return count;
+    }
+
+    @Test
+    public void capacity_roundsUpToAPowerOfTwo() {
+        assertEquals(2, fill(new InputQueue(1)));
+        assertEquals(2, fill(new InputQueue(2)));
+        assertEquals(4, fill(new InputQueue(3)));
+        assertEquals(4, fill(new InputQueue(4)));
+        assertEquals(8, fill(new InputQueue(5)));
+        assertEquals(8, fill(new InputQueue(8)));
+        assertEquals(16, fill(new InputQueue(9)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void capacity_mustBePositive() {
+        new InputQueue(0);
+    }
+
+    @Test
+    public void full_refusesUntilSomethingIsTaken() {
+        InputQueue queue = new InputQueue(4);
+        assertEquals(4, fill(queue));
+        assertFalse(queue.offer(2, 99));
+        assertEquals(4, queue.size());
+        queue.remove();
+        assertTrue(queue.offer(2, 99));
+        assertFalse(queue.offer(3, 100));
+    }
+
+    @Test
+    public void wrapsAroundTheBuffer() {
+        InputQueue queue = new InputQueue(4);
+        for (int i = 0; i < 50; i++) {
+            // Three in, three out, so the slots move round the ring
+            for (int j = 0; j < 3; j++) {
+                assertTrue(queue.offer((i + j) & 0xFF, 1000L * i + j));
+            }
+            for (int j = 0; j < 3; j++) {
+                assertEquals((i + j) & 0xFF, queue.peek());
+                assertEquals(1000L * i + j, queue.peekTime());
+                queue.remove();
+            }
+            assertEquals(InputQueue.EMPTY, queue.peek());
+        }
+    }
+
+    @Test
+    public void handsOverInOrderBetweenThreads() throws InterruptedException {
+        final int count = 200000;
+        final InputQueue queue = new InputQueue(8);
+        Thread producer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    while (!queue.offer(i & 0xFF, i)) {
+                        Thread.yield();
+                    }
+                }
+            }
+        });
+        producer.start();
+        for (int i = 0; i < count; i++) {
+            int command;
+            while ((command = queue.peek()) == InputQueue.EMPTY) {
+                Thread.yield();
+            }
+            assertEquals(i & 0xFF, command);
+            assertEquals(i, queue.peekTime());
+            queue.remove();
+        }
+        producer.join();
+        assertEquals(0, queue.size());
+    }
+}
@@ -0,0 +1,84 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+    @Test
+    public void smallValues_getABucketEach() {
+        for (int value = 0; value < 32; value++) {
+            assertEquals(value, LatencyHistogram.bucketOf(value));
+            assertEquals(value, LatencyHistogram.highestValueIn(value));
+        }
+    }
+
+    @Test
+    public void buckets_coverEveryValueWithoutGaps() {
+        for (long value = 1; value < 1L << 41; value = value * 3 / 2 + 1) {
+            for (long v = value - 1; v <= value + 1; v++) {
+                int bucket = LatencyHistogram.bucketOf(v);
+                assertTrue("top of the bucket for " + v, LatencyHistogram.highestValueIn(bucket) >= v);
+                if (bucket > 0) {
+                    assertTrue("top of the bucket below " + v, LatencyHistogram.highestValueIn(bucket - 1) < v);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void powersOfTwo_startABucket() {
+        for (int exponent = 5; exponent <= 40; exponent++) {
+            long power = 1L << exponent;
+            assertEquals(LatencyHistogram.bucketOf(power - 1) + 1, LatencyHistogram.bucketOf(power));
+            assertEquals(power - 1, LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(power - 1)));
+        }
+    }
+
+    @Test
+    public void buckets_areWithinSixPercent() {
+        for (long value = 32; value < 1L << 40; value = value * 5 / 4 + 7) {
+            long top = LatencyHistogram.highestValueIn(LatencyHistogram.bucketOf(value));
+            assertTrue(value + " read back as " + top, top - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void hugeValues_shareTheLastBucket() {
+        int last = LatencyHistogram.bucketOf(Long.MAX_VALUE);
+        assertEquals(last, LatencyHistogram.bucketOf(1L << 41));
+        assertEquals(last, LatencyHistogram.bucketOf((1L << 41) - 1));
+        assertEquals((1L << 41) - 1, LatencyHistogram.highestValueIn(last));
+        assertTrue(LatencyHistogram.bucketOf(1L << 40) < last);
+    }
+
+    @Test
+    public void percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(50));
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500, histogram.getMean());
+        assertEquals(1000, histogram.getMax());
+        assertEquals(1, histogram.getPercentile(0));
+        long p50 = histogram.getPercentile(50);
+        assertTrue("p50 " + p50, p50 >= 500 && p50 <= 500 + 500 / 16);
+        long p99 = histogram.getPercentile(99);
+        assertTrue("p99 " + p99, p99 >= 990 && p99 <= 1000);
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void reset_forgetsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(12345);
+        histogram.record(-5);
+        assertEquals(0, histogram.getPercentile(1));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getPercentile(99));
+    }
+}
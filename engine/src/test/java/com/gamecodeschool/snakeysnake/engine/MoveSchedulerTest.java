@@ -0,0 +1,94 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MoveSchedulerTest {
+    private static int[] ticks(MoveScheduler mover, int count) {
+        int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = mover.cellsThisTick();
+        }
+        return cells;
+    }
+
+    @Test
+    public void fractionalSpeeds_carryTheLeftoverOver() {
+        MoveScheduler mover = new MoveScheduler();
+        mover.setBaseSpeed(MoveScheduler.ONE / 2);
+        assertArrayEquals(new int[] {0, 1, 0, 1, 0, 1}, ticks(mover, 6));
+        mover.reset();
+        mover.setBaseSpeed(MoveScheduler.ONE * 3 / 2);
+        assertArrayEquals(new int[] {1, 2, 1, 2, 1, 2}, ticks(mover, 6));
+    }
+
+    @Test
+    public void anySpeed_addsUpExactly() {
+        for (int speed = MoveScheduler.MIN_SPEED; speed <= MoveScheduler.MAX_SPEED; speed += 37) {
+            MoveScheduler mover = new MoveScheduler();
+            mover.setBaseSpeed(speed);
+            int total = 0;
+            for (int cells : ticks(mover, MoveScheduler.ONE)) {
+                total += cells;
+            }
+            // ONE ticks at speed / ONE cells a tick
+            assertEquals("speed " + speed, speed, total);
+        }
+    }
+
+    @Test
+    public void peek_doesNotUseUpProgress() {
+        MoveScheduler mover = new MoveScheduler();
+        mover.setBaseSpeed(MoveScheduler.ONE * 3 / 4);
+        for (int i = 0; i < 20; i++) {
+            int peeked = mover.peekCellsThisTick();
+            assertEquals(peeked, mover.peekCellsThisTick());
+            assertEquals(peeked, mover.cellsThisTick());
+        }
+    }
+
+    @Test
+    public void speed_isClamped() {
+        MoveScheduler mover = new MoveScheduler();
+        mover.setBaseSpeed(1);
+        assertEquals(MoveScheduler.MIN_SPEED, mover.getSpeed());
+        mover.setBaseSpeed(100 * MoveScheduler.ONE);
+        assertEquals(MoveScheduler.MAX_SPEED, mover.getSpeed());
+    }
+
+    // The snake at top speed and the head's row clear for a few cells
+    private static GameEngine fastEngine() {
+        GameEngine engine = new GameEngine(40, 20, 1);
+        engine.setPickupCount(0);
+        engine.newGame();
+        SnakeBody snake = engine.getState().getSnake();
+        snake.getMover().setBaseSpeed(MoveScheduler.MAX_SPEED);
+        for (int i = 1; i <= 4; i++) {
+            assertEquals(OccupancyGrid.EMPTY,
+                    engine.getState().getGrid().get(snake.getHeadX() + i, snake.getHeadY()));
+        }
+        return engine;
+    }
+
+    @Test
+    public void fastSnake_eatsWhatItPassesOver() {
+        GameEngine engine = fastEngine();
+        SnakeBody snake = engine.getState().getSnake();
+        int x = snake.getHeadX();
+        engine.getState().getPickups().obtain().spawn(x + 2, snake.getHeadY(), PowerUpType.APPLE, 0);
+        int events = engine.tick();
+        assertEquals(GameEngine.EVENT_ATE_APPLE, events);
+        assertEquals(x + 4, snake.getHeadX());
+        assertEquals(1, engine.getState().getScore());
+    }
+
+    @Test
+    public void fastSnake_hitsWhatItPassesOver() {
+        GameEngine engine = fastEngine();
+        SnakeBody snake = engine.getState().getSnake();
+        engine.getState().getGrid().set(snake.getHeadX() + 3, snake.getHeadY(), OccupancyGrid.WALL);
+        int events = engine.tick();
+        assertEquals(GameEngine.EVENT_HIT_WALL | GameEngine.EVENT_DIED, events);
+    }
+}
@@ -0,0 +1,70 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OccupancyGridTest {
+    @Test
+    public void randomFreeIndex_onlyPicksEmptyCellsUntilFull() {
+        OccupancyGrid grid = new OccupancyGrid(12, 8);
+        Random random = new Random(1);
+        // Everything inside the edge ring starts free
+        assertEquals(10 * 6, grid.getFreeCount());
+        int flag = OccupancyGrid.SNAKE;
+        while (grid.getFreeCount() > 0) {
+            int index = grid.randomFreeIndex(random);
+            int x = grid.indexX(index);
+            int y = grid.indexY(index);
+            assertEquals(OccupancyGrid.EMPTY, grid.get(x, y));
+            int free = grid.getFreeCount();
+            grid.set(x, y, flag);
+            assertEquals(free - 1, grid.getFreeCount());
+            flag = flag == OccupancyGrid.SNAKE ? OccupancyGrid.WALL : flag == OccupancyGrid.WALL
+                    ? OccupancyGrid.APPLE : OccupancyGrid.SNAKE;
+        }
+        assertEquals(-1, grid.randomFreeIndex(random));
+    }
+
+    @Test
+    public void randomFreeIndex_isUniform() {
+        OccupancyGrid grid = new OccupancyGrid(40, 30);
+        for (int x = 1; x < 39; x++) {
+            grid.set(x, 15, OccupancyGrid.WALL);
+        }
+        int free = grid.getFreeCount();
+        int[] counts = new int[40 * 30];
+        Random random = new Random(2);
+        int samples = free * 200;
+        for (int i = 0; i < samples; i++) {
+            counts[grid.randomFreeIndex(random)]++;
+        }
+        int visited = 0;
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] > 0) {
+                visited++;
+                // 200 expected, 6 standard deviations either way
+                assertTrue("cell " + index + " picked " + counts[index], Math.abs(counts[index] - 200) < 85);
+            }
+        }
+        assertEquals(free, visited);
+    }
+
+    @Test
+    public void clearingTheLastFlag_freesTheCell() {
+        OccupancyGrid grid = new OccupancyGrid(6, 6);
+        int free = grid.getFreeCount();
+        grid.set(2, 2, OccupancyGrid.SNAKE);
+        grid.set(2, 2, OccupancyGrid.APPLE);
+        assertEquals(free - 1, grid.getFreeCount());
+        grid.clear(2, 2, OccupancyGrid.SNAKE);
+        assertEquals(free - 1, grid.getFreeCount());
+        grid.clearAll(OccupancyGrid.APPLE);
+        assertEquals(free, grid.getFreeCount());
+        // The edge is never free
+        grid.clear(0, 0, OccupancyGrid.SNAKE);
+        assertEquals(free, grid.getFreeCount());
+    }
+}
@@ -0,0 +1,85 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PickupPoolTest {
+    @Test
+    public void obtain_reusesReleasedSlots() {
+        PickupPool pool = new PickupPool(new OccupancyGrid(10, 10), 3);
+        Pickup first = pool.obtain();
+        assertSame(pool.getSlot(0), first);
+        Pickup second = pool.obtain();
+        Pickup third = pool.obtain();
+        assertNull(pool.obtain());
+        assertEquals(3, pool.getActiveCount());
+
+        pool.release(second);
+        assertEquals(2, pool.getActiveCount());
+        // The free list is a stack, the last one back is the next one out
+        assertSame(second, pool.obtain());
+        pool.release(third);
+        pool.release(first);
+        assertSame(first, pool.obtain());
+        assertSame(third, pool.obtain());
+        assertNull(pool.obtain());
+    }
+
+    @Test
+    public void release_twiceDoesNothing() {
+        PickupPool pool = new PickupPool(new OccupancyGrid(10, 10), 2);
+        Pickup pickup = pool.obtain();
+        pool.release(pickup);
+        pool.release(pickup);
+        assertEquals(0, pool.getActiveCount());
+        assertSame(pickup, pool.obtain());
+        assertNotNull(pool.obtain());
+        assertNull(pool.obtain());
+    }
+
+    @Test
+    public void at_findsThePickupInACell() {
+        OccupancyGrid grid = new OccupancyGrid(10, 10);
+        PickupPool pool = new PickupPool(grid, 4);
+        Pickup[] pickups = new Pickup[4];
+        for (int i = 0; i < pickups.length; i++) {
+            pickups[i] = pool.obtain();
+            pickups[i].spawn(i + 1, 2, PowerUpType.APPLE, 0);
+        }
+        for (int i = 0; i < pickups.length; i++) {
+            assertSame(pickups[i], pool.at(i + 1, 2));
+        }
+        assertNull(pool.at(1, 3));
+
+        // Taking one out of the middle leaves the rest where they were
+        pool.release(pickups[1]);
+        assertNull(pool.at(2, 2));
+        assertFalse(grid.has(2, 2, OccupancyGrid.APPLE));
+        assertSame(pickups[0], pool.at(1, 2));
+        assertSame(pickups[2], pool.at(3, 2));
+        assertSame(pickups[3], pool.at(4, 2));
+        assertEquals(3, pool.getActiveCount());
+        for (int i = 0; i < pool.getActiveCount(); i++) {
+            assertNotSame(pickups[1], pool.getActive(i));
+        }
+
+        // Moving one clears its old cell
+        pickups[3].spawn(7, 7, PowerUpType.APPLE, 0);
+        assertNull(pool.at(4, 2));
+        assertSame(pickups[3], pool.at(7, 7));
+    }
+
+    @Test
+    public void clear_emptiesTheBoard() {
+        OccupancyGrid grid = new OccupancyGrid(10, 10);
+        PickupPool pool = new PickupPool(grid, 2);
+        pool.obtain().spawn(3, 3, PowerUpType.APPLE, 0);
+        pool.obtain().spawn(4, 4, PowerUpType.APPLE, 0);
+        pool.clear();
+        assertEquals(0, pool.getActiveCount());
+        assertFalse(grid.has(3, 3, OccupancyGrid.APPLE));
+        assertFalse(grid.has(4, 4, OccupancyGrid.APPLE));
+        assertSame(pool.getSlot(0), pool.obtain());
+    }
+}
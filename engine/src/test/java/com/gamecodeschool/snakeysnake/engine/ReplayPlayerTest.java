@@ -0,0 +1,109 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ReplayPlayerTest {
+    // Plays with random turns and some settings changes, returns the engine
+    private static GameEngine record(GameEngine engine, int ticks) {
+        engine.startRecording();
+        engine.newGame();
+        Random turns = new Random(17);
+        for (int i = 0; i < ticks; i++) {
+            int turn = turns.nextInt(8);
+            if (turn == 0) {
+                engine.turnClockwise();
+            } else if (turn == 1) {
+                engine.turnCounterClockwise();
+            }
+            if (i == ticks / 2) {
+                engine.setTickMillis(60);
+                engine.setPickupCount(3);
+            }
+            engine.tick();
+        }
+        return engine;
+    }
+
+    private static void assertSameGame(GameEngine expected, GameEngine actual) {
+        assertEquals(expected.getState().getScore(), actual.getState().getScore());
+        assertEquals(expected.getState().getTimeMillis(), actual.getState().getTimeMillis());
+        assertArrayEquals(GameSnapshot.toByteArray(expected), GameSnapshot.toByteArray(actual));
+    }
+
+    @Test
+    public void playsBackTheSameGame() {
+        GameEngine engine = record(new GameEngine(25, 15, 1234), 20000);
+        ReplayPlayer player = new ReplayPlayer(engine.getRecorder().toByteArray());
+        assertEquals(20000, player.playToEnd());
+        assertSameGame(engine, player.getEngine());
+    }
+
+    @Test
+    public void playsBackFromPartWayThrough() {
+        GameEngine engine = new GameEngine(25, 15, 99);
+        engine.newGame();
+        for (int i = 0; i < 300; i++) {
+            engine.tick();
+        }
+        record(engine, 5000);
+        ReplayPlayer player = new ReplayPlayer(engine.getRecorder().toByteArray());
+        player.playToEnd();
+        assertSameGame(engine, player.getEngine());
+    }
+
+    @Test
+    public void playsBackWithTheRecordedPowerUps() {
+        PowerUpRegistry powerUps = new PowerUpRegistry()
+                .register(PowerUpType.APPLE)
+                .register(new PowerUpType(5, "rotten apple", 40, 3000, MoveScheduler.ONE / 2, 1, -2, 0))
+                .setPickupLifetimeMillis(2000);
+        GameEngine engine = record(new GameEngine(25, 15, 5, powerUps), 10000);
+        ReplayPlayer player = new ReplayPlayer(engine.getRecorder().toByteArray());
+        player.playToEnd();
+        PowerUpRegistry played = player.getEngine().getState().getPowerUps();
+        assertEquals("rotten apple", played.byId(5).getName());
+        assertEquals(-2, played.byId(5).getPoints());
+        assertEquals(2000, played.getPickupLifetimeMillis());
+        assertSameGame(engine, player.getEngine());
+    }
+
+    @Test
+    public void capture_writesTheSameBytesAsACopy() throws IOException {
+        GameEngine engine = record(new GameEngine(25, 15, 8), 3000);
+        ReplayRecorder.Replay replay = engine.getRecorder().capture();
+        byte[] copy = engine.getRecorder().toByteArray();
+        // Recording carries on without touching what was captured
+        for (int i = 0; i < 3000; i++) {
+            if (i % 7 == 0) {
+                engine.turnCounterClockwise();
+            }
+            engine.tick();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        replay.writeTo(out);
+        assertArrayEquals(copy, out.toByteArray());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownVersion() {
+        byte[] replay = record(new GameEngine(25, 15, 1), 10).getRecorder().toByteArray();
+        // The version is the varint straight after the magic
+        replay[4] = (byte) (ReplayRecorder.VERSION + 1);
+        new ReplayPlayer(replay);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsAnUnknownOp() {
+        byte[] replay = record(new GameEngine(25, 15, 1), 10).getRecorder().toByteArray();
+        // Swap the end record, always the last byte here, for an op nothing uses
+        replay[replay.length - 1] = (byte) (ReplayRecorder.OP_PICKUP_COUNT + 1);
+        new ReplayPlayer(replay).playToEnd();
+    }
+}
@@ -0,0 +1,79 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SnakeBatchTest {
+    private static final int STEPS = 20000;
+
+    // Board b of a batch against an engine with the same seed, only apples and
+    // the same turns, move by move
+    private static void assertPlaysLikeTheEngine(int width, int height, long seed, int boards) {
+        SnakeBatch batch = new SnakeBatch(boards, width, height, seed);
+        GameEngine[] engines = new GameEngine[boards];
+        for (int b = 0; b < boards; b++) {
+            engines[b] = new GameEngine(width, height, seed + b, new PowerUpRegistry().register(PowerUpType.APPLE));
+            engines[b].newGame();
+        }
+        Random turns = new Random(seed);
+        int[] actions = new int[boards];
+        int deaths = 0;
+        for (int i = 0; i < STEPS; i++) {
+            for (int b = 0; b < boards; b++) {
+                int roll = turns.nextInt(8);
+                actions[b] = roll == 0 ? SnakeBatch.ACTION_CLOCKWISE
+                        : roll == 1 ? SnakeBatch.ACTION_COUNTER_CLOCKWISE : SnakeBatch.ACTION_STRAIGHT;
+                if (actions[b] == SnakeBatch.ACTION_CLOCKWISE) {
+                    engines[b].turnClockwise();
+                } else if (actions[b] == SnakeBatch.ACTION_COUNTER_CLOCKWISE) {
+                    engines[b].turnCounterClockwise();
+                }
+            }
+            batch.step(actions);
+            for (int b = 0; b < boards; b++) {
+                int events = engines[b].tick();
+                GameState state = engines[b].getState();
+                SnakeBody snake = state.getSnake();
+                String when = "board " + b + " step " + i;
+                assertEquals(when, events & GameEngine.EVENT_DIED, batch.getEvents(b) & GameEngine.EVENT_DIED);
+                assertEquals(when, snake.getHeadX(), batch.getHeadX(b));
+                assertEquals(when, snake.getHeadY(), batch.getHeadY(b));
+                assertEquals(when, snake.getLength(), batch.getLength(b));
+                assertEquals(when, state.getScore(), batch.getScore(b));
+                Pickup apple = state.getPickups().getActive(0);
+                assertEquals(when, apple.getX(), batch.getAppleX(b));
+                assertEquals(when, apple.getY(), batch.getAppleY(b));
+                if ((events & GameEngine.EVENT_DIED) != 0) {
+                    deaths++;
+                }
+            }
+        }
+        // Otherwise it hasn't checked much
+        assertTrue(deaths > boards);
+    }
+
+    @Test
+    public void playsLikeTheEngine() {
+        assertPlaysLikeTheEngine(20, 12, 42, 4);
+    }
+
+    @Test
+    public void playsLikeTheEngine_onABoardOfManyChunks() {
+        assertPlaysLikeTheEngine(80, 70, 9, 2);
+    }
+
+    @Test
+    public void wallsAndAppleLandOnFreeCells() {
+        SnakeBatch batch = new SnakeBatch(8, 20, 12, 1);
+        for (int b = 0; b < batch.getBoardCount(); b++) {
+            int x = batch.getAppleX(b);
+            int y = batch.getAppleY(b);
+            assertFalse(batch.isSnakeAt(b, x, y));
+            assertFalse(batch.isWallAt(b, x, y));
+            assertFalse(batch.isEdgeAt(b, x, y));
+        }
+    }
+}
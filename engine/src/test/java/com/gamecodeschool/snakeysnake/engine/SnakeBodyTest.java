@@ -0,0 +1,62 @@
+package com.gamecodeschool.snakeysnake.engine;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SnakeBodyTest {
+    @Test
+    public void segments_stayInOrderAsTheRingGrowsAndWraps() {
+        OccupancyGrid grid = new OccupancyGrid(400, 10);
+        SnakeBody snake = new SnakeBody(grid);
+        // Well past the starting capacity, heading right along y = 5
+        snake.reset(400, 10, 150);
+        assertEquals(150, snake.getLength());
+        for (int i = 0; i < 160; i++) {
+            snake.move();
+        }
+        assertEquals(150, snake.getLength());
+        assertEquals(360, snake.getHeadX());
+        for (int i = 0; i < snake.getLength(); i++) {
+            int cell = snake.segmentAt(i);
+            assertEquals(360 - i, SnakeBody.cellX(cell));
+            assertEquals(5, SnakeBody.cellY(cell));
+            assertTrue(grid.has(360 - i, 5, OccupancyGrid.SNAKE));
+        }
+        assertFalse(grid.has(360 - snake.getLength(), 5, OccupancyGrid.SNAKE));
+    }
+
+    @Test
+    public void reset_emptiesTheRing() {
+        OccupancyGrid grid = new OccupancyGrid(40, 20);
+        SnakeBody snake = new SnakeBody(grid);
+        snake.reset(40, 20, 15);
+        snake.reset(40, 20);
+        assertEquals(1, snake.getLength());
+        assertEquals(SnakeBody.cellOf(20, 10), snake.segmentAt(0));
+        assertTrue(grid.has(20, 10, OccupancyGrid.SNAKE));
+        assertFalse(grid.has(19, 10, OccupancyGrid.SNAKE));
+    }
+
+    @Test
+    public void turningBackOnItself_hitsItself() {
+        OccupancyGrid grid = new OccupancyGrid(20, 20);
+        SnakeBody snake = new SnakeBody(grid);
+        snake.reset(20, 20, 5);
+        snake.turnClockwise();
+        snake.move();
+        snake.turnClockwise();
+        snake.move();
+        assertFalse(snake.hasHitSelf());
+        snake.turnClockwise();
+        snake.move();
+        assertTrue(snake.hasHitSelf());
+    }
+
+    @Test
+    public void cells_packNegativeCoordinates() {
+        int cell = SnakeBody.cellOf(-1, -1);
+        assertEquals(-1, SnakeBody.cellX(cell));
+        assertEquals(-1, SnakeBody.cellY(cell));
+    }
+}
@@ -15,4 +15,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Snakey Snake"
 include(":app")
+include(":engine")
+include(":benchmark")
  
\ No newline at end of file